@@ -0,0 +1,24 @@
+-- Catálogo local de volúmenes (entidad Book) --
+-- La tabla books anterior no se usaba: se recrea con la nueva estructura
+-- Los textos que vienen de Google van en TEXT: no hay un máximo documentado y un VARCHAR(n)
+-- haría fallar el upsert de toda la página por un solo título largo
+-- Autores y categorías como text[] (igual que favorites.authors)
+DROP TABLE IF EXISTS books;
+
+CREATE TABLE books (
+    id              BIGSERIAL PRIMARY KEY,
+    volume_id       VARCHAR(128) NOT NULL UNIQUE,
+    title           TEXT,
+    authors         TEXT[] NOT NULL DEFAULT '{}',
+    publisher       TEXT,
+    published_date  TEXT,
+    description     TEXT,
+    categories      TEXT[] NOT NULL DEFAULT '{}',
+    cover_url       TEXT,
+    isbn13          VARCHAR(20),
+    isbn10          VARCHAR(20),
+    fetched_at      TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_books_isbn13 ON books (isbn13);
+CREATE INDEX idx_books_isbn10 ON books (isbn10);
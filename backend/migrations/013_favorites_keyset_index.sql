@@ -0,0 +1,3 @@
+-- Índice para el listado de favoritos paginado por cursor (created_at, id) --
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_favorites_user_created_id
+    ON favorites (user_id, created_at DESC, id DESC);
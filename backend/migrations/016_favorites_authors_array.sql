@@ -0,0 +1,20 @@
+-- Autores de favoritos normalizados: text[] con índice GIN (antes authors_text 'a|b|c') --
+-- Fase "expand": authors_text se mantiene hasta 027, así una versión anterior de la app
+-- que aún lea o escriba authors_text sigue funcionando durante el despliegue
+BEGIN;
+
+ALTER TABLE favorites ADD COLUMN IF NOT EXISTS authors text[] NOT NULL DEFAULT '{}';
+
+-- Cada autor sin espacios alrededor; los segmentos vacíos ('a||b', 'a|') se descartan
+UPDATE favorites
+SET authors = array_remove(ARRAY(
+        SELECT btrim(a.author)
+        FROM unnest(string_to_array(authors_text, '|')) WITH ORDINALITY AS a(author, pos)
+        ORDER BY a.pos), '')
+WHERE authors_text IS NOT NULL AND authors_text <> '';
+
+COMMIT;
+
+-- Filtro "mis libros de X" (authors @> ARRAY[X]) --
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_favorites_authors
+    ON favorites USING GIN (authors);
@@ -0,0 +1,36 @@
+-- Signup en un solo INSERT: la unicidad la garantizan los índices, con nombres conocidos --
+-- El username sigue siendo exacto (distingue mayúsculas); el email no
+-- Antes de aplicarla, comprobar que no hay emails que solo difieran en mayúsculas o espacios:
+--   SELECT lower(trim(email)), count(*) FROM users GROUP BY 1 HAVING count(*) > 1;
+BEGIN;
+
+-- Emails guardados siempre en minúsculas y sin espacios (UserService ya los normaliza al crear)
+UPDATE users SET email = lower(trim(email)) WHERE email <> lower(trim(email));
+
+-- Las restricciones que generó Hibernate tienen nombres aleatorios (uk...): se sustituyen por otras con nombre
+DO $$
+DECLARE
+    c record;
+BEGIN
+    FOR c IN
+        SELECT conname FROM pg_constraint
+        WHERE conrelid = 'users'::regclass AND contype = 'u'
+          AND conname NOT IN ('users_username_key', 'users_email_key')
+    LOOP
+        EXECUTE format('ALTER TABLE users DROP CONSTRAINT %I', c.conname);
+    END LOOP;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = 'users'::regclass AND conname = 'users_username_key') THEN
+        ALTER TABLE users ADD CONSTRAINT users_username_key UNIQUE (username);
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = 'users'::regclass AND conname = 'users_email_key') THEN
+        ALTER TABLE users ADD CONSTRAINT users_email_key UNIQUE (email);
+    END IF;
+END $$;
+
+COMMIT;
+
+-- Email único sin distinguir mayúsculas; también es el índice de findByEmail (lower(email) = lower(?)) --
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS users_email_lower_key ON users (lower(email));
+-- Una versión anterior de esta migración también creaba uno sobre lower(username)
+DROP INDEX CONCURRENTLY IF EXISTS users_username_lower_key;
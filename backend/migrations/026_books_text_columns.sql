@@ -0,0 +1,29 @@
+-- Catálogo de volúmenes: textos de Google sin límite de longitud y autores/categorías como text[] --
+-- Para BBDD que aplicaron una versión anterior de 008 (VARCHAR(n) y authors_text/categories_text 'a|b|c');
+-- sobre una tabla creada con la 008 actual no hace nada
+-- VARCHAR -> TEXT no reescribe la tabla; *_text se pasa a text[] y se elimina en el mismo paso:
+-- books es una caché de Google, una instancia anterior que aún escriba *_text solo pierde ese upsert
+BEGIN;
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'books' AND column_name = 'authors_text') THEN
+        ALTER TABLE books
+            ALTER COLUMN title TYPE TEXT,
+            ALTER COLUMN publisher TYPE TEXT,
+            ALTER COLUMN published_date TYPE TEXT,
+            ADD COLUMN authors TEXT[] NOT NULL DEFAULT '{}',
+            ADD COLUMN categories TEXT[] NOT NULL DEFAULT '{}';
+
+        -- Los segmentos vacíos ('a||b', 'a|') se descartan, como hacía la lectura de 'a|b|c'
+        UPDATE books
+        SET authors = coalesce(array_remove(string_to_array(authors_text, '|'), ''), '{}'),
+            categories = coalesce(array_remove(string_to_array(categories_text, '|'), ''), '{}')
+        WHERE authors_text IS NOT NULL OR categories_text IS NOT NULL;
+
+        ALTER TABLE books DROP COLUMN authors_text, DROP COLUMN categories_text;
+    END IF;
+END $$;
+
+COMMIT;
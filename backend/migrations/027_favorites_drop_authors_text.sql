@@ -0,0 +1,15 @@
+-- Fase "contract" de 016: se elimina authors_text --
+-- Aplicar solo cuando ninguna instancia de la versión anterior siga en marcha
+BEGIN;
+
+-- Filas que una instancia antigua haya escrito solo en authors_text después de 016
+UPDATE favorites
+SET authors = array_remove(ARRAY(
+        SELECT btrim(a.author)
+        FROM unnest(string_to_array(authors_text, '|')) WITH ORDINALITY AS a(author, pos)
+        ORDER BY a.pos), '')
+WHERE authors = '{}' AND authors_text IS NOT NULL AND authors_text <> '';
+
+ALTER TABLE favorites DROP COLUMN IF EXISTS authors_text;
+
+COMMIT;
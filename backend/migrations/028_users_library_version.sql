@@ -0,0 +1,3 @@
+-- Versión de la biblioteca de cada usuario (ETag de /api/me/library) --
+-- Compartida por todas las instancias; se sube en la misma transacción que cambia los favoritos
+ALTER TABLE users ADD COLUMN IF NOT EXISTS library_version BIGINT NOT NULL DEFAULT 0;
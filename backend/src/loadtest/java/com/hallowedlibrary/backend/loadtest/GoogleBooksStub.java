@@ -0,0 +1,216 @@
+package com.hallowedlibrary.backend.loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Stub local de Google Books para las pruebas de carga
+ * - GET /books/v1/volumes?q=&startIndex=&maxResults=  (página de búsqueda)
+ * - GET /books/v1/volumes/{id}                        (un volumen)
+ * - Catálogo sintético y determinista de volumeCount volúmenes (vol-000001...), con ISBN-13 válidos
+ * - Latencia configurable (fija + jitter) e inyección de errores (503 con la probabilidad indicada)
+ */
+public class GoogleBooksStub implements AutoCloseable {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final int volumeCount;
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double errorRate;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    static {
+        // Por defecto el HttpServer de la JDK solo conserva 200 conexiones keep-alive y cierra el resto:
+        // con más peticiones en vuelo el pool del backend reutilizaría conexiones ya cerradas
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "10000");
+    }
+
+    public GoogleBooksStub(int volumeCount, long latencyMs, long jitterMs, double errorRate) throws IOException {
+        this.volumeCount = volumeCount;
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.errorRate = errorRate;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        this.executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/books/v1/volumes", this::handle);
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/books/v1";
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getInjectedErrors() {
+        return injectedErrors.get();
+    }
+
+    public String volumeId(int n) {
+        return String.format("vol-%06d", n);
+    }
+
+    public String isbn13(int n) {
+        String body = "978" + String.format("%09d", n);
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (body.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return body + ((10 - sum % 10) % 10);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try (exchange) {
+            simulateLatency();
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                injectedErrors.incrementAndGet();
+                send(exchange, 503, "{\"error\":{\"code\":503,\"message\":\"Backend Error\"}}".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            String prefix = "/books/v1/volumes";
+            if (path.length() > prefix.length() + 1) {
+                String id = path.substring(prefix.length() + 1);
+                int n = parseVolumeNumber(id);
+                if (n < 1 || n > volumeCount) {
+                    send(exchange, 404, "{\"error\":{\"code\":404,\"message\":\"The volume ID could not be found.\"}}"
+                            .getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                send(exchange, 200, mapper.writeValueAsBytes(volume(n)));
+                return;
+            }
+
+            Map<String, String> params = query(exchange.getRequestURI().getRawQuery());
+            String q = params.getOrDefault("q", "");
+            int startIndex = intParam(params, "startIndex", 0);
+            int maxResults = Math.max(1, Math.min(40, intParam(params, "maxResults", 10)));
+            send(exchange, 200, mapper.writeValueAsBytes(searchPage(q, startIndex, maxResults)));
+        }
+    }
+
+    private ObjectNode searchPage(String q, int startIndex, int maxResults) {
+        ObjectNode root = mapper.createObjectNode();
+        root.put("kind", "books#volumes");
+        root.put("totalItems", volumeCount);
+        ArrayNode items = root.putArray("items");
+
+        if (q.startsWith("isbn:")) {
+            String isbn = q.substring(5).replace("-", "");
+            for (int n = 1; n <= volumeCount; n++) {
+                if (isbn13(n).equals(isbn)) {
+                    items.add(volume(n));
+                    break;
+                }
+            }
+            return root;
+        }
+
+        // Cada query "ve" una ventana distinta (y estable) del catálogo
+        int base = Math.floorMod(q.hashCode(), volumeCount);
+        for (int i = 0; i < maxResults; i++) {
+            items.add(volume(1 + Math.floorMod(base + startIndex + i, volumeCount)));
+        }
+        return root;
+    }
+
+    private ObjectNode volume(int n) {
+        ObjectNode v = mapper.createObjectNode();
+        v.put("kind", "books#volume");
+        v.put("id", volumeId(n));
+        v.put("etag", Integer.toHexString(n));
+        ObjectNode info = v.putObject("volumeInfo");
+        info.put("title", "Libro de prueba " + n);
+        info.putArray("authors").add("Autor " + (n % 500)).add("Coautor " + (n % 97));
+        info.put("publisher", "Editorial " + (n % 50));
+        info.put("publishedDate", String.valueOf(1950 + n % 70));
+        info.put("description", "Descripción sintética del volumen " + n
+                + ". Texto de relleno para que el tamaño de la respuesta se parezca al de Google.");
+        ArrayNode ids = info.putArray("industryIdentifiers");
+        ids.addObject().put("type", "ISBN_13").put("identifier", isbn13(n));
+        info.putArray("categories").add(n % 2 == 0 ? "Fiction" : "History");
+        ObjectNode images = info.putObject("imageLinks");
+        images.put("smallThumbnail", "http://books.example/thumb/" + n + "?zoom=5");
+        images.put("thumbnail", "http://books.example/thumb/" + n + "?zoom=1");
+        v.putObject("saleInfo").put("country", "ES").put("saleability", "NOT_FOR_SALE");
+        v.putObject("accessInfo").put("viewability", "NO_PAGES");
+        return v;
+    }
+
+    private void simulateLatency() {
+        long delay = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0);
+        if (delay <= 0) return;
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static int parseVolumeNumber(String id) {
+        if (!id.startsWith("vol-")) return -1;
+        try {
+            return Integer.parseInt(id.substring(4));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static int intParam(Map<String, String> params, String name, int def) {
+        try {
+            return Integer.parseInt(params.getOrDefault(name, String.valueOf(def)));
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
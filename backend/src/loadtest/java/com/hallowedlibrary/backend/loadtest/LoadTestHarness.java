@@ -0,0 +1,544 @@
+package com.hallowedlibrary.backend.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hallowedlibrary.backend.HallowedLibraryBackendApplication;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Prueba de carga extremo a extremo
+ * - Arranca Postgres embebido (o usa load.jdbc-url si se indica), el stub de Google Books y el backend
+ * - El esquema lo crea Hibernate; después se aplican los índices de load.migrations (migrations/*.sql)
+ * - Registra load.users usuarios y les hace login para tener sus tokens
+ * - Lanza load.concurrency hilos que mezclan búsqueda, get-by-id, ISBN, login y biblioteca (add/list/remove)
+ * - Las búsquedas usan source=load.search-source (remote, local o auto)
+ * - Tras load.warmup-seconds de calentamiento mide durante load.duration-seconds
+ * - Imprime throughput y p50/p99/p999 por endpoint y lo guarda en target/loadtest-result.json
+ * - load.scenario=search-ramp: solo búsquedas que nunca aciertan en caché (todas llegan al stub),
+ *   con la concurrencia de cada escalón de load.ramp; sirve para ver hasta dónde escala un modo de ejecución
+ * - load.scenario=import: load.imports importaciones de load.import-size favoritos nuevos
+ *   (POST /me/library/import) repartidas entre los usuarios; las primeras load.imports/10 son de calentamiento
+ * - load.app-properties: propiedades extra del backend separadas por ';' (p.ej. spring.threads.virtual.enabled=true)
+ *
+ * mvn -Ploadtest test-compile exec:exec
+ * mvn -Ploadtest test-compile exec:exec -Dload.concurrency=64 -Dload.stub-latency-ms=150 -Dload.stub-error-rate=0.05
+ * mvn -Ploadtest test-compile exec:exec -Dload.scenario=search-ramp -Dload.app-properties=spring.threads.virtual.enabled=true
+ * mvn -Ploadtest test-compile exec:exec -Dload.scenario=import -Dload.app-properties=favorites.import.batch-size=100
+ */
+public class LoadTestHarness {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String PASSWORD = "loadtest-password";
+
+    // Peso relativo de cada operación en el tráfico
+    private enum Op {
+        SEARCH(30), GET_BY_ID(25), ISBN(10), LOGIN(5), LIBRARY_LIST(15), LIBRARY_ADD(10), LIBRARY_REMOVE(5);
+
+        final int weight;
+
+        Op(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private record Session(String username, String token) {}
+
+    private final HttpClient http;
+    private final String apiBase;
+    private final GoogleBooksStub stub;
+    private final int volumeCount;
+    private final String searchSource;
+
+    private final Map<Op, Recorder> recorders = new LinkedHashMap<>();
+    private final Map<Op, AtomicLong> errors = new LinkedHashMap<>();
+
+    private LoadTestHarness(HttpClient http, String apiBase, GoogleBooksStub stub, int volumeCount, String searchSource) {
+        this.http = http;
+        this.apiBase = apiBase;
+        this.stub = stub;
+        this.volumeCount = volumeCount;
+        this.searchSource = searchSource;
+        for (Op op : Op.values()) {
+            // Hasta 60 s con 3 dígitos significativos
+            recorders.put(op, new Recorder(TimeUnit.SECONDS.toMicros(60), 3));
+            errors.put(op, new AtomicLong());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int durationSeconds = Integer.getInteger("load.duration-seconds", 60);
+        int warmupSeconds = Integer.getInteger("load.warmup-seconds", 10);
+        int concurrency = Integer.getInteger("load.concurrency", 32);
+        int users = Integer.getInteger("load.users", 50);
+        int volumeCount = Integer.getInteger("load.volumes", 5000);
+        long stubLatencyMs = Long.getLong("load.stub-latency-ms", 80);
+        long stubJitterMs = Long.getLong("load.stub-jitter-ms", 40);
+        double stubErrorRate = Double.parseDouble(System.getProperty("load.stub-error-rate", "0.01"));
+        String jdbcUrl = System.getProperty("load.jdbc-url", "");
+        String searchSource = System.getProperty("load.search-source", "remote");
+        String migrations = System.getProperty("load.migrations",
+                "013_favorites_keyset_index.sql,024_users_unique_normalized.sql");
+        String scenario = System.getProperty("load.scenario", "mixed");
+        int[] ramp = parseRamp(System.getProperty("load.ramp", "50,100,200,400"));
+        String appProperties = System.getProperty("load.app-properties", "");
+        int imports = Integer.getInteger("load.imports", 200);
+        int importSize = Integer.getInteger("load.import-size", 500);
+        if (scenario.equals("search-ramp")) {
+            concurrency = Math.max(concurrency, ramp[ramp.length - 1]);
+        }
+
+        // devtools relanzaría la app en otro classloader; aquí no aporta nada
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        EmbeddedPostgres postgres = null;
+        ConfigurableApplicationContext context = null;
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(Math.max(4, concurrency / 4));
+        try (GoogleBooksStub stub = new GoogleBooksStub(volumeCount, stubLatencyMs, stubJitterMs, stubErrorRate)) {
+            String dbUser = System.getProperty("load.jdbc-user", "postgres");
+            String dbPassword = System.getProperty("load.jdbc-password", "postgres");
+            if (jdbcUrl.isBlank()) {
+                postgres = EmbeddedPostgres.builder().start();
+                jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+            }
+
+            List<String> properties = new ArrayList<>(List.of(
+                            "server.port=0",
+                            "spring.datasource.url=" + jdbcUrl,
+                            "spring.datasource.username=" + dbUser,
+                            "spring.datasource.password=" + dbPassword,
+                            "spring.jpa.hibernate.ddl-auto=update",
+                            "spring.jpa.open-in-view=false",
+                            "jwt.secret=loadtest-secret-loadtest-secret-loadtest",
+                            "google.books.api.base-url=" + stub.baseUrl(),
+                            // La cuota real de Google no aplica contra el stub
+                            "google.books.quota.per-second=100000",
+                            "google.books.quota.burst=100000",
+                            "google.books.quota.daily-limit=100000000",
+                            "logging.level.root=WARN"));
+            for (String property : appProperties.split(";")) {
+                if (!property.isBlank()) properties.add(property.trim());
+            }
+            context = new SpringApplicationBuilder(HallowedLibraryBackendApplication.class)
+                    .properties(properties.toArray(String[]::new))
+                    .run();
+            applyMigrations(context.getBean(DataSource.class), migrations);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            HttpClient http = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(clientExecutor)
+                    .build();
+            LoadTestHarness harness = new LoadTestHarness(http, "http://127.0.0.1:" + port + "/api", stub, volumeCount,
+                    searchSource);
+            if (scenario.equals("search-ramp")) {
+                harness.runRamp(ramp, warmupSeconds, durationSeconds);
+            } else if (scenario.equals("import")) {
+                harness.runImports(users, concurrency, imports, importSize);
+            } else {
+                harness.run(users, concurrency, warmupSeconds, durationSeconds);
+            }
+        } finally {
+            clientExecutor.shutdownNow();
+            if (context != null) context.close();
+            if (postgres != null) postgres.close();
+        }
+    }
+
+    /**
+     * Aplica migraciones de índices sobre el esquema que ha creado Hibernate
+     * Sentencia a sentencia y en autocommit (CREATE INDEX CONCURRENTLY no admite transacción);
+     * los bloques DO $$ ... $$ se mantienen enteros
+     */
+    private static void applyMigrations(DataSource dataSource, String files) throws IOException, SQLException {
+        for (String file : files.split(",")) {
+            if (file.isBlank()) continue;
+            Path path = Path.of("migrations", file.trim());
+            List<String> statements = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            boolean inDollarQuote = false;
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                if (!inDollarQuote && (line.isBlank() || line.trim().startsWith("--"))) continue;
+                current.append(line).append('\n');
+                if ((line.split("\\$\\$", -1).length - 1) % 2 == 1) inDollarQuote = !inDollarQuote;
+                if (!inDollarQuote && line.trim().endsWith(";")) {
+                    statements.add(current.toString());
+                    current.setLength(0);
+                }
+            }
+
+            try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                connection.setAutoCommit(true);
+                for (String sql : statements) {
+                    String trimmed = sql.trim();
+                    // BEGIN/COMMIT de los ficheros: aquí cada sentencia va en su propia transacción
+                    if (trimmed.equalsIgnoreCase("BEGIN;") || trimmed.equalsIgnoreCase("COMMIT;")) continue;
+                    statement.execute(sql);
+                }
+            }
+            System.out.println("Migración aplicada: " + path);
+        }
+    }
+
+    private void run(int userCount, int concurrency, int warmupSeconds, int durationSeconds) throws Exception {
+        List<Session> sessions = signUp(userCount);
+        System.out.printf("Usuarios listos: %d; stub en %s%n", sessions.size(), stub.baseUrl());
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+        for (int i = 0; i < concurrency; i++) {
+            workers.submit(() -> {
+                while (System.nanoTime() < end) {
+                    Session session = sessions.get(ThreadLocalRandom.current().nextInt(sessions.size()));
+                    execute(pick(), session);
+                }
+            });
+        }
+
+        sleepUntil(warmupEnd);
+        // Se descarta lo registrado durante el calentamiento
+        recorders.values().forEach(Recorder::reset);
+        errors.values().forEach(e -> e.set(0));
+        long measureStart = System.nanoTime();
+        long stubRequestsStart = stub.getRequests();
+
+        workers.shutdown();
+        workers.awaitTermination(durationSeconds + 60L, TimeUnit.SECONDS);
+        double seconds = (System.nanoTime() - measureStart) / 1e9;
+
+        report(seconds, stub.getRequests() - stubRequestsStart);
+    }
+
+    /**
+     * Un escalón por nivel de concurrencia, cada uno con su calentamiento y su medida
+     * Las consultas son únicas para que ninguna se sirva desde la caché de búsquedas
+     */
+    private void runRamp(int[] levels, int warmupSeconds, int durationSeconds) throws Exception {
+        Recorder recorder = recorders.get(Op.SEARCH);
+        AtomicLong errorCount = errors.get(Op.SEARCH);
+        AtomicLong queries = new AtomicLong();
+        List<Map<String, Object>> steps = new ArrayList<>();
+
+        System.out.printf("%nStub en %s%n", stub.baseUrl());
+        System.out.printf("%-12s %10s %10s %10s %10s %10s %8s%n",
+                "concurrency", "count", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        for (int level : levels) {
+            ExecutorService workers = Executors.newFixedThreadPool(level);
+            long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            long end = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+            for (int i = 0; i < level; i++) {
+                workers.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        HttpRequest request = get("/books/search?q=" + encode("rampa " + queries.incrementAndGet())
+                                + "&maxResults=20&source=remote", null);
+                        send(Op.SEARCH, request);
+                    }
+                });
+            }
+
+            sleepUntil(warmupEnd);
+            recorder.reset();
+            errorCount.set(0);
+            long measureStart = System.nanoTime();
+            workers.shutdown();
+            workers.awaitTermination(durationSeconds + 60L, TimeUnit.SECONDS);
+            double seconds = (System.nanoTime() - measureStart) / 1e9;
+
+            Histogram h = recorder.getIntervalHistogram();
+            double throughput = h.getTotalCount() / seconds;
+            System.out.printf("%-12d %10d %10.1f %10.2f %10.2f %10.2f %8d%n",
+                    level, h.getTotalCount(), throughput, millis(h.getValueAtPercentile(50)),
+                    millis(h.getValueAtPercentile(99)), millis(h.getMaxValue()), errorCount.get());
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("concurrency", level);
+            row.put("count", h.getTotalCount());
+            row.put("throughput", throughput);
+            row.put("p50Ms", millis(h.getValueAtPercentile(50)));
+            row.put("p99Ms", millis(h.getValueAtPercentile(99)));
+            row.put("maxMs", millis(h.getMaxValue()));
+            row.put("errors", errorCount.get());
+            steps.add(row);
+        }
+
+        Path out = Path.of("target", "loadtest-result.json");
+        Files.createDirectories(out.getParent());
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(out.toFile(), Map.of("searchRamp", steps));
+        System.out.println("Resultados en " + out.toAbsolutePath());
+    }
+
+    /**
+     * Importaciones masivas con volúmenes que el usuario no tiene, así todas las filas se insertan
+     * Mide la latencia de cada importación y las filas/s del total
+     */
+    private void runImports(int userCount, int concurrency, int imports, int importSize) throws Exception {
+        List<Session> sessions = signUp(userCount);
+        Recorder recorder = new Recorder(TimeUnit.SECONDS.toMicros(60), 3);
+        AtomicLong errorCount = new AtomicLong();
+        AtomicLong next = new AtomicLong();
+        int warmup = imports / 10;
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        List<Future<?>> done = new ArrayList<>();
+        AtomicLong measureStart = new AtomicLong(System.nanoTime());
+        for (int i = 0; i < concurrency; i++) {
+            done.add(workers.submit(() -> {
+                long n;
+                while ((n = next.getAndIncrement()) < imports) {
+                    Session session = sessions.get((int) (n % sessions.size()));
+                    List<Map<String, Object>> items = new ArrayList<>(importSize);
+                    for (int j = 0; j < importSize; j++) {
+                        String volumeId = "imp-" + n + "-" + j;
+                        items.add(Map.of(
+                                "volumeId", volumeId,
+                                "title", "Libro importado " + volumeId,
+                                "miniature", "http://books.example/thumb/" + volumeId,
+                                "authors", List.of("Autor " + (j % 500))));
+                    }
+                    HttpRequest request = post("/me/library/import", json(items), session.token());
+
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (IOException e) {
+                        status = -1;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+
+                    if (n == warmup) measureStart.set(start);
+                    if (n < warmup) continue;
+                    recorder.recordValue(Math.min(micros, TimeUnit.SECONDS.toMicros(60)));
+                    if (status != 200) errorCount.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> f : done) f.get();
+        workers.shutdown();
+        long end = System.nanoTime();
+
+        Histogram h = recorder.getIntervalHistogram();
+        double seconds = (end - measureStart.get()) / 1e9;
+        double rowsPerSecond = h.getTotalCount() * importSize / seconds;
+        System.out.printf("%n%-10s %10s %10s %10s %10s %10s %8s%n",
+                "imports", "rows", "rows/s", "p50 ms", "p99 ms", "max ms", "errors");
+        System.out.printf("%-10d %10d %10.0f %10.2f %10.2f %10.2f %8d%n",
+                h.getTotalCount(), h.getTotalCount() * importSize, rowsPerSecond,
+                millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(99)), millis(h.getMaxValue()),
+                errorCount.get());
+
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("imports", h.getTotalCount());
+        row.put("importSize", importSize);
+        row.put("rowsPerSecond", rowsPerSecond);
+        row.put("p50Ms", millis(h.getValueAtPercentile(50)));
+        row.put("p99Ms", millis(h.getValueAtPercentile(99)));
+        row.put("maxMs", millis(h.getMaxValue()));
+        row.put("errors", errorCount.get());
+        Path out = Path.of("target", "loadtest-result.json");
+        Files.createDirectories(out.getParent());
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(out.toFile(), Map.of("import", row));
+        System.out.println("Resultados en " + out.toAbsolutePath());
+    }
+
+    private void execute(Op op, Session session) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int volume = 1 + random.nextInt(volumeCount);
+        HttpRequest request = switch (op) {
+            case SEARCH -> get("/books/search?q=" + encode("tema " + random.nextInt(200))
+                    + "&maxResults=20&source=" + searchSource, null);
+            case GET_BY_ID -> get("/books/" + stub.volumeId(volume), null);
+            case ISBN -> get("/books/isbn/" + stub.isbn13(volume), null);
+            case LOGIN -> post("/login", json(Map.of("identifier", session.username(), "password", PASSWORD)), null);
+            case LIBRARY_LIST -> get("/me/library?limit=50", session.token());
+            case LIBRARY_ADD -> post("/me/library", json(Map.of(
+                    "volumeId", stub.volumeId(volume),
+                    "title", "Libro de prueba " + volume,
+                    "miniature", "http://books.example/thumb/" + volume,
+                    "authors", List.of("Autor " + (volume % 500)))), session.token());
+            case LIBRARY_REMOVE -> delete("/me/library/" + stub.volumeId(volume), session.token());
+        };
+        send(op, request);
+    }
+
+    private void send(Op op, HttpRequest request) {
+        long start = System.nanoTime();
+        int status;
+        try {
+            status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            status = -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+
+        recorders.get(op).recordValue(Math.min(micros, TimeUnit.SECONDS.toMicros(60)));
+        // 404 es una respuesta válida (p.ej. borrar algo que no estaba en la biblioteca)
+        if (status < 0 || (status >= 400 && status != 404)) errors.get(op).incrementAndGet();
+    }
+
+    private List<Session> signUp(int count) throws Exception {
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        List<Session> sessions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String username = "load_" + runId + "_" + i;
+            HttpResponse<String> created = http.send(post("/users", json(Map.of(
+                    "name", "Usuario de carga " + i,
+                    "username", username,
+                    "email", username + "@loadtest.local",
+                    "password", PASSWORD,
+                    "passwordConf", PASSWORD)), null), HttpResponse.BodyHandlers.ofString());
+            if (created.statusCode() >= 300) {
+                throw new IllegalStateException("Signup fallido (" + created.statusCode() + "): " + created.body());
+            }
+
+            HttpResponse<String> login = http.send(post("/login",
+                    json(Map.of("identifier", username, "password", PASSWORD)), null), HttpResponse.BodyHandlers.ofString());
+            JsonNode body = MAPPER.readTree(login.body());
+            if (login.statusCode() != 200 || !body.hasNonNull("access_token")) {
+                throw new IllegalStateException("Login fallido (" + login.statusCode() + "): " + login.body());
+            }
+            sessions.add(new Session(username, body.get("access_token").asText()));
+        }
+        return sessions;
+    }
+
+    private void report(double seconds, long stubRequests) throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        long totalCount = 0;
+
+        System.out.printf("%nDuración medida: %.1f s; peticiones al stub: %d (%d errores inyectados en total)%n",
+                seconds, stubRequests, stub.getInjectedErrors());
+        System.out.printf("%-16s %10s %10s %10s %10s %10s %10s %8s%n",
+                "endpoint", "count", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors");
+
+        for (Op op : Op.values()) {
+            Histogram h = recorders.get(op).getIntervalHistogram();
+            long count = h.getTotalCount();
+            totalCount += count;
+            double throughput = count / seconds;
+            long errorCount = errors.get(op).get();
+            System.out.printf("%-16s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %8d%n",
+                    op.name().toLowerCase(), count, throughput,
+                    millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(99)),
+                    millis(h.getValueAtPercentile(99.9)), millis(h.getMaxValue()), errorCount);
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("count", count);
+            row.put("throughput", throughput);
+            row.put("p50Ms", millis(h.getValueAtPercentile(50)));
+            row.put("p99Ms", millis(h.getValueAtPercentile(99)));
+            row.put("p999Ms", millis(h.getValueAtPercentile(99.9)));
+            row.put("maxMs", millis(h.getMaxValue()));
+            row.put("errors", errorCount);
+            result.put(op.name().toLowerCase(), row);
+        }
+        System.out.printf("%-16s %10d %10.1f%n", "total", totalCount, totalCount / seconds);
+
+        Path out = Path.of("target", "loadtest-result.json");
+        Files.createDirectories(out.getParent());
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(out.toFile(), result);
+        System.out.println("Resultados en " + out.toAbsolutePath());
+    }
+
+    private static Op pick() {
+        int total = 0;
+        for (Op op : Op.values()) total += op.weight;
+        int r = ThreadLocalRandom.current().nextInt(total);
+        for (Op op : Op.values()) {
+            r -= op.weight;
+            if (r < 0) return op;
+        }
+        return Op.SEARCH;
+    }
+
+    private HttpRequest get(String path, String token) {
+        return request(path, token).GET().build();
+    }
+
+    private HttpRequest post(String path, String body, String token) {
+        return request(path, token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest delete(String path, String token) {
+        return request(path, token).DELETE().build();
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(apiBase + path))
+                .timeout(Duration.ofSeconds(30));
+        if (token != null) builder.header("Authorization", "Bearer " + token);
+        return builder;
+    }
+
+    private static String json(Object value) {
+        try {
+            return MAPPER.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int[] parseRamp(String levels) {
+        return Arrays.stream(levels.split(","))
+                .map(String::trim)
+                .filter(level -> !level.isEmpty())
+                .mapToInt(Integer::parseInt)
+                .toArray();
+    }
+
+    private static String encode(String s) {
+        return URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static void sleepUntil(long deadlineNanos) throws InterruptedException {
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining > 0) TimeUnit.NANOSECONDS.sleep(remaining);
+    }
+}
@@ -1,5 +1,7 @@
 package com.hallowedlibrary.backend;
 
+import java.util.Map;
+
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
@@ -7,7 +9,18 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 public class HallowedLibraryBackendApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(HallowedLibraryBackendApplication.class, args);
+		SpringApplication app = new SpringApplication(HallowedLibraryBackendApplication.class);
+		// Valores por defecto; application.properties los sobrescribe
+		// Actuator va en su propio puerto y solo en la interfaz local (ver SecurityConfig);
+		// en el puerto público quedan /livez y /readyz para los balanceadores
+		app.setDefaultProperties(Map.of(
+				"management.endpoints.web.exposure.include", "health,info,prometheus,books",
+				"management.metrics.tags.application", "hallowed-library",
+				"management.server.port", "8081",
+				"management.server.address", "127.0.0.1",
+				"management.endpoint.health.probes.enabled", "true",
+				"management.endpoint.health.probes.add-additional-paths", "true"));
+		app.run(args);
 	}
 
 }
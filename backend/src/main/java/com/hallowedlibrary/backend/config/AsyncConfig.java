@@ -0,0 +1,84 @@
+package com.hallowedlibrary.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executors para los endpoints asíncronos de libros (BooksController)
+ * - booksExecutor: un hilo virtual por petición, solo con books.async.virtual-threads=true (opt-in);
+ *   por defecto los handlers se ejecutan en el propio hilo de Tomcat. Un pool de hilos de plataforma
+ *   aquí solo movería cada llamada bloqueante a otro pool del mismo tamaño, por eso no lo hay
+ * - books.async.max-concurrency: tope de peticiones en vuelo en booksExecutor (-1 sin tope)
+ * - booksFanOutExecutor: pool aparte para las peticiones en paralelo de /api/books/batch,
+ *   así las subtareas nunca esperan a hilos ocupados por la petición que las lanzó
+ * - catalogExecutor: pool pequeño para escrituras/refrescos del catálogo local en segundo plano
+ * - prefetchExecutor: prefetch de la siguiente página de búsqueda, hilos de prioridad mínima
+ * - passwordExecutor: BCrypt de login/signup (ver PasswordHasher), tantos hilos como núcleos y cola corta,
+ *   para que una ráfaga de logins no se coma los hilos de Tomcat
+ * Con spring.threads.virtual.enabled=true Spring Boot usa también hilos virtuales en Tomcat
+ * y books.async.virtual-threads se activa por defecto.
+ */
+@Configuration
+public class AsyncConfig {
+
+    @Bean
+    public AsyncTaskExecutor booksExecutor(
+            @Value("${books.async.max-concurrency:-1}") int maxConcurrency) {
+        return executor("books-", true, 0, 0, maxConcurrency);
+    }
+
+    @Bean
+    public AsyncTaskExecutor booksFanOutExecutor(
+            @Value("${books.async.virtual-threads:${spring.threads.virtual.enabled:false}}") boolean virtualThreads,
+            @Value("${books.batch.pool-size:32}") int poolSize,
+            @Value("${books.batch.queue-capacity:1000}") int queueCapacity) {
+        return executor("books-batch-", virtualThreads, poolSize, queueCapacity, -1);
+    }
+
+    @Bean
+    public AsyncTaskExecutor catalogExecutor(
+            @Value("${books.catalog.pool-size:2}") int poolSize,
+            @Value("${books.catalog.queue-capacity:1000}") int queueCapacity) {
+        return executor("catalog-", false, poolSize, queueCapacity, -1);
+    }
+
+    @Bean
+    public AsyncTaskExecutor prefetchExecutor(
+            @Value("${books.prefetch.max-concurrent:2}") int maxConcurrent,
+            @Value("${books.prefetch.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = (ThreadPoolTaskExecutor)
+                executor("prefetch-", false, maxConcurrent, queueCapacity, -1);
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        return executor;
+    }
+
+    @Bean
+    public AsyncTaskExecutor passwordExecutor(
+            @Value("${auth.password.pool-size:0}") int poolSize,
+            @Value("${auth.password.queue-capacity:32}") int queueCapacity) {
+        // BCrypt es CPU pura: por defecto tantos hilos como núcleos
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        return executor("bcrypt-", false, threads, queueCapacity, -1);
+    }
+
+    private static AsyncTaskExecutor executor(String prefix, boolean virtualThreads,
+            int poolSize, int queueCapacity, int maxConcurrency) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(prefix + "vt-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(maxConcurrency);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(prefix);
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        return executor;
+    }
+}
@@ -0,0 +1,30 @@
+package com.hallowedlibrary.backend.config;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.hallowedlibrary.backend.services.BooksService;
+
+/**
+ * Estado interno de los libros en /actuator/books (solo en el puerto de management, ver SecurityConfig):
+ * cachés, índice local, prefetch, cuota de Google y circuit breaker
+ * Lo numérico está también como métricas (MetricsConfig); esto es para depurar a mano
+ */
+@Component
+@Endpoint(id = "books")
+public class BooksStatsEndpoint {
+
+    private final BooksService booksService;
+
+    public BooksStatsEndpoint(BooksService booksService) {
+        this.booksService = booksService;
+    }
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return booksService.getCacheStats();
+    }
+}
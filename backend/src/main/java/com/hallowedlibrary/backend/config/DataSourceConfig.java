@@ -0,0 +1,32 @@
+package com.hallowedlibrary.backend.config;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Ajustes del driver de Postgres que no dependen de application.properties
+ * - reWriteBatchedInserts: el driver convierte un batch de INSERT en INSERT multi-fila
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    public static BeanPostProcessor postgresBatchRewrite(
+            @Value("${db.rewrite-batched-inserts:true}") boolean rewriteBatchedInserts) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (rewriteBatchedInserts && bean instanceof HikariDataSource ds
+                        && (ds.getJdbcUrl() == null || ds.getJdbcUrl().startsWith("jdbc:postgresql:"))) {
+                    ds.addDataSourceProperty("reWriteBatchedInserts", "true");
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package com.hallowedlibrary.backend.config;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Cliente HTTP hacia Google Books
+ * - Apache HttpClient con pool de conexiones persistentes (keep-alive), tamaño total y por host configurables
+ * - Las conexiones inactivas más de idle-eviction-ms se cierran en segundo plano
+ * - Timeout de conexión y de lectura; el de lectura es de socket, así que acota también la lectura
+ *   del body (no solo la espera de las cabeceras) para no bloquear hilos de Tomcat
+ * - Pide respuestas comprimidas (gzip); se descomprimen en GoogleBooksClient, que limita el tamaño
+ *   ya descomprimido (por eso la descompresión automática de Apache va desactivada)
+ */
+@Configuration
+public class GoogleBooksClientConfig {
+
+    @Bean
+    public RestTemplate googleBooksRestTemplate(RestTemplateBuilder builder,
+            @Value("${google.books.client.connect-timeout-ms:2000}") long connectTimeoutMs,
+            @Value("${google.books.client.read-timeout-ms:5000}") long readTimeoutMs,
+            @Value("${google.books.client.max-connections:50}") int maxConnections,
+            @Value("${google.books.client.max-connections-per-route:50}") int maxConnectionsPerRoute,
+            @Value("${google.books.client.idle-eviction-ms:30000}") long idleEvictionMs) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .build();
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        // Esperando una conexión libre del pool tampoco se bloquea más que el connect timeout
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleEvictionMs))
+                .evictExpiredConnections()
+                .disableContentCompression()
+                .build();
+
+        return builder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .defaultHeader(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package com.hallowedlibrary.backend.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.hallowedlibrary.backend.security.JwtUtil;
+import com.hallowedlibrary.backend.services.BooksService;
+import com.hallowedlibrary.backend.services.IsbnIndex;
+import com.hallowedlibrary.backend.services.LocalSearchIndex;
+import com.hallowedlibrary.backend.services.UpstreamQuota;
+import com.hallowedlibrary.backend.services.UserService;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Métricas que no se miden en el propio código (en /actuator/prometheus):
+ * - Cachés Caffeine (hits, misses, evictions, tamaño) con tag cache=<nombre>
+ * - Presupuesto de Google (UpstreamQuota) y estado del circuit breaker
+ * Los timers de cada camino (Google, JWT, favoritos, BCrypt) se registran donde se miden
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder cacheMetrics(BooksService booksService, IsbnIndex isbnIndex,
+                                    UserService userService, JwtUtil jwtUtil) {
+        return registry -> {
+            booksService.caches().forEach((name, cache) -> CaffeineCacheMetrics.monitor(registry, cache, name));
+            CaffeineCacheMetrics.monitor(registry, isbnIndex.cache(), "books.isbn");
+            CaffeineCacheMetrics.monitor(registry, userService.cache(), "users");
+            CaffeineCacheMetrics.monitor(registry, jwtUtil.cache(), "jwt.verified");
+        };
+    }
+
+    @Bean
+    public MeterBinder upstreamMetrics(UpstreamQuota quota, BooksService booksService) {
+        return registry -> {
+            Gauge.builder("books.upstream.quota.remaining", quota, UpstreamQuota::getRemainingDaily)
+                    .description("Llamadas a Google que quedan hoy (-1 sin límite diario)")
+                    .register(registry);
+            Gauge.builder("books.upstream.quota.tokens", quota, UpstreamQuota::getAvailableTokens)
+                    .description("Tokens disponibles en el bucket")
+                    .register(registry);
+            Gauge.builder("books.upstream.circuit.state", booksService, s -> s.getCircuitState().ordinal())
+                    .description("0 = CLOSED, 1 = OPEN, 2 = HALF_OPEN")
+                    .register(registry);
+            Gauge.builder("books.upstream.inflight", booksService, BooksService::getInFlightCount)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder localSearchMetrics(LocalSearchIndex localIndex) {
+        return registry -> Gauge.builder("books.local.index.docs", localIndex, LocalSearchIndex::size)
+                .description("Volúmenes en el índice de búsqueda local")
+                .register(registry);
+    }
+}
@@ -1,5 +1,6 @@
 package com.hallowedlibrary.backend.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -8,12 +9,13 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 /**
  * Define un bean PasswordEncoder que puede inyectarse en servicios
  * BCryptPasswordEncoder para hashear contraseñas
+ * auth.password.bcrypt-strength: coste de BCrypt; al cambiarlo, los hashes se actualizan en el siguiente login
  */
 @Configuration
 public class PasswordConfig {
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${auth.password.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 }
@@ -1,9 +1,13 @@
 package com.hallowedlibrary.backend.config;
 
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.springframework.boot.web.context.WebServerInitializedEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -21,13 +25,25 @@ import com.hallowedlibrary.backend.security.JwtFilter;
 @EnableWebSecurity
 public class SecurityConfig {
 
+    private static final Set<String> MANAGEMENT_ENDPOINTS = Set.of("/actuator/prometheus", "/actuator/books");
+
     private final JwtFilter jwtFilter;
 
+    // Puerto real del servidor de management (management.server.port); -1 hasta que arranca
+    private final AtomicInteger managementPort = new AtomicInteger(-1);
+
     // Inyectar el filtro por el constructor
     public SecurityConfig(JwtFilter jwtFilter) {
         this.jwtFilter = jwtFilter;
     }
 
+    // El contexto de management publica aquí su arranque (también con puerto 0)
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        if ("management".equals(event.getApplicationContext().getServerNamespace()))
+            managementPort.set(event.getWebServer().getPort());
+    }
+
     @Bean
 public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
     http
@@ -37,6 +53,11 @@ public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Excepti
         .authorizeHttpRequests(auth -> auth
             // Endpoints públicos
             .requestMatchers("/api/users", "/api/login", "/api/books/**").permitAll()
+            // Health: público (y /livez, /readyz en el puerto de la API)
+            .requestMatchers("/actuator/health/**", "/livez", "/readyz").permitAll()
+            // Scrape de Prometheus y estado de libros: solo por el puerto de management (127.0.0.1 por defecto)
+            .requestMatchers(request -> request.getLocalPort() == managementPort.get()
+                    && MANAGEMENT_ENDPOINTS.contains(request.getRequestURI())).permitAll()
             // Todo lo demás requiere autenticación
             .anyRequest().authenticated()
         )
@@ -53,6 +74,7 @@ public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Excepti
         configuration.setAllowedOrigins(List.of("http://localhost:5173")); // frontend
         configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(List.of("*"));
+        configuration.setExposedHeaders(List.of("ETag", "X-Stale", "Retry-After", "X-Search-Source")); // caché condicional, datos stale, origen de la búsqueda
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -2,10 +2,13 @@ package com.hallowedlibrary.backend.controllers;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -19,6 +22,7 @@ import com.hallowedlibrary.backend.dto.LoginDto;
 import com.hallowedlibrary.backend.dto.UserCreateDto;
 import com.hallowedlibrary.backend.dto.UserResponseDto;
 import com.hallowedlibrary.backend.entities.User;
+import com.hallowedlibrary.backend.exceptions.PasswordHashingBusyException;
 import com.hallowedlibrary.backend.exceptions.UserAlreadyExistsException;
 import com.hallowedlibrary.backend.security.JwtUtil;
 import com.hallowedlibrary.backend.services.UserService;
@@ -28,6 +32,8 @@ import com.hallowedlibrary.backend.services.UserService;
  * - POST /api/users -> registro (signup)
  * - POST /api/login -> login (devuelve JWT)
  * - GET  /api/profile -> perfil protegido (requiere token)
+ * Signup y login son asíncronos: el BCrypt corre en passwordExecutor (ver PasswordHasher)
+ * y, si está saturado, se responde 503 con Retry-After en vez de bloquear hilos de Tomcat
  */
 @RestController
 @RequestMapping("/api")
@@ -48,58 +54,92 @@ public class AuthController {
      * Recibe un UserCreateDto (con passwordConf) y delega en UserService
      */
     @PostMapping("/users")
-    public ResponseEntity<?> createUser(@RequestBody UserCreateDto userDto) {
+    public CompletableFuture<ResponseEntity<?>> createUser(@RequestBody UserCreateDto userDto) {
+        CompletableFuture<User> created;
         try {
-            // Crear usuario y devolver DTO público sin password
-            User saved = userService.createUser(userDto);
-            UserResponseDto resp = userService.toResponseDto(saved);
+            created = userService.createUser(userDto);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(createUserError(e));
+        }
 
-            return ResponseEntity
-                    .status(HttpStatus.CREATED)
-                    .body(Map.of("message", "Usuario creado con éxito", "user", resp));
+        // Devolver DTO público sin password
+        return created.<ResponseEntity<?>>thenApply(saved -> ResponseEntity
+                        .status(HttpStatus.CREATED)
+                        .body(Map.of("message", "Usuario creado con éxito", "user", userService.toResponseDto(saved))))
+                .exceptionally(ex -> createUserError(unwrap(ex)));
+    }
 
-        } catch (UserAlreadyExistsException e) {
+    private ResponseEntity<?> createUserError(Throwable e) {
+        if (e instanceof UserAlreadyExistsException) {
             // Validación personalizada: username/email ya existían
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
-
-        } catch (IllegalArgumentException e) {
+        }
+        if (e instanceof IllegalArgumentException) {
             // Errores de validación simple desde el servicio
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
-
-        } catch (DataIntegrityViolationException e) {
-            // En caso de haber una violación de integridad en DB (race condition, constraints)
+        }
+        if (e instanceof PasswordHashingBusyException busy) {
+            return busy(busy);
+        }
+        if (e instanceof DataIntegrityViolationException) {
+            // Otras restricciones de la BBDD (los duplicados de username/email ya llegan como UserAlreadyExistsException)
             logger.warn("Data integrity error al crear usuario: {}", e.getMessage());
             return ResponseEntity.badRequest().body(Map.of("error", "Error de integridad en la base de datos"));
-
-        } catch (Exception e) {
-            // Otros errores
-            logger.error("Error inesperado creando usuario", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Error inesperado"));
         }
+        // Otros errores
+        logger.error("Error inesperado creando usuario", e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error inesperado"));
     }
 
     /**
      * Login: recibe LoginDto (identifier + password) -> Devuelve access_token y user
      */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginDto dto) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginDto dto) {
         // Buscar por username o email según el identificador
         Optional<User> userOpt = userService.findByUsernameOrEmail(dto.getIdentifier());
-        if (userOpt.isEmpty() || !userService.checkPassword(userOpt.get(), dto.getPassword())) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(Map.of("error", "Credenciales inválidas"));
+        if (userOpt.isEmpty()) {
+            return CompletableFuture.completedFuture(invalidCredentials());
         }
 
         User user = userOpt.get();
+        return userService.checkPassword(user, dto.getPassword()).<ResponseEntity<?>>thenApply(matches -> {
+            if (!matches) return invalidCredentials();
 
-        // Generar token JWT
-        String token = jwtUtil.generateToken(user.getId());
+            // Refrescar la caché de usuarios con la versión recién leída de BBDD
+            userService.cacheUser(user);
 
-        // Construir DTO público
-        UserResponseDto resp = userService.toResponseDto(user);
+            // Generar token JWT
+            String token = jwtUtil.generateToken(user.getId());
+
+            // Construir DTO público
+            UserResponseDto resp = userService.toResponseDto(user);
+
+            return ResponseEntity.ok(Map.of("access_token", token, "user", resp));
+        }).exceptionally(ex -> {
+            Throwable cause = unwrap(ex);
+            if (cause instanceof PasswordHashingBusyException busy) return busy(busy);
+            logger.error("Error inesperado en login", cause);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Error inesperado"));
+        });
+    }
+
+    private static ResponseEntity<?> invalidCredentials() {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(Map.of("error", "Credenciales inválidas"));
+    }
+
+    // Sin capacidad para BCrypt: 503 enseguida con Retry-After
+    private static ResponseEntity<?> busy(PasswordHashingBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
+    }
 
-        return ResponseEntity.ok(Map.of("access_token", token, "user", resp));
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
     }
 
     /**
@@ -1,23 +1,48 @@
 package com.hallowedlibrary.backend.controllers;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.hallowedlibrary.backend.dto.BookBatchDto;
 import com.hallowedlibrary.backend.dto.BookDto;
+import com.hallowedlibrary.backend.exceptions.UpstreamRateLimitedException;
+import com.hallowedlibrary.backend.exceptions.UpstreamUnavailableException;
 import com.hallowedlibrary.backend.services.BooksService;
+import com.hallowedlibrary.backend.services.BooksService.SearchSource;
+import com.hallowedlibrary.backend.services.LocalSearchIndex;
+import com.hallowedlibrary.backend.services.Served;
 
 /**
  * Endpoints públicos para buscar/obtener libros
- * - GET /api/books/search?q=...
+ * - GET /api/books/search?q=...&source=local|remote|auto
  * - GET /api/books/{id}
+ * - GET /api/books/batch?ids=a,b,c  (o POST /api/books/batch con ["a","b","c"])
+ * Sin cuota hacia Google se responde 429 con Retry-After (ver UpstreamQuota)
+ * Con Google caído se sirve la última copia conocida con X-Stale: true, o 503 si no la hay
+ * Las búsquedas indican de dónde salen con X-Search-Source: local | remote
+ * Con books.async.virtual-threads=true las llamadas que esperan a Google se ejecutan en hilos virtuales
+ * (booksExecutor, ver AsyncConfig) y no ocupan hilos de Tomcat mientras tanto; por defecto van en el hilo de Tomcat
  */
 @RestController
 @RequestMapping("/api/books")
@@ -25,10 +50,19 @@ public class BooksController {
 
     private static final Logger logger = LoggerFactory.getLogger(BooksController.class);
 
+    public static final String STALE_HEADER = "X-Stale";
+    public static final String SOURCE_HEADER = "X-Search-Source";
+
     private final BooksService booksService;
+    private final AsyncTaskExecutor booksExecutor;
+    private final boolean virtualThreads;
 
-    public BooksController(BooksService booksService) {
+    public BooksController(BooksService booksService,
+                           @Qualifier("booksExecutor") AsyncTaskExecutor booksExecutor,
+                           @Value("${books.async.virtual-threads:${spring.threads.virtual.enabled:false}}") boolean virtualThreads) {
         this.booksService = booksService;
+        this.booksExecutor = booksExecutor;
+        this.virtualThreads = virtualThreads;
     }
 
     /**
@@ -36,75 +70,194 @@ public class BooksController {
      * Parámetros:
      * - q (query libre) OR title / author / isbn
      * - startIndex, maxResults (paginación)
+     * - source: local (solo índice local), remote (Google) o auto (local si hay cobertura suficiente);
+     *   por defecto books.search.default-source
+     *   Con source=local una query que el índice local no sabe resolver responde 400
      */
     @GetMapping("/search")
-    public ResponseEntity<?> search(
+    public CompletableFuture<ResponseEntity<?>> search(
             @RequestParam(required = false) String q,
             @RequestParam(required = false) String title,
             @RequestParam(required = false) String author,
             @RequestParam(required = false) String isbn,
             @RequestParam(defaultValue = "0") int startIndex,
-            @RequestParam(defaultValue = "20") int maxResults) {
-        try {
-            String query;
-            if (isbn != null && !isbn.isBlank()) {
-                query = "isbn:" + isbn;
-            } else if ((title != null && !title.isBlank()) || (author != null && !author.isBlank())) {
-                StringBuilder sb = new StringBuilder();
-                if (title != null && !title.isBlank())
-                    sb.append("intitle:").append(title.replace(" ", "+"));
-                if (author != null && !author.isBlank()) {
-                    if (sb.length() > 0)
-                        sb.append("+");
-                    sb.append("inauthor:").append(author.replace(" ", "+"));
+            @RequestParam(defaultValue = "20") int maxResults,
+            @RequestParam(defaultValue = "${books.search.default-source:remote}") String source) {
+        SearchSource mode = parseSource(source);
+        if (mode == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(Map.of("error", "source debe ser local, remote o auto")));
+        }
+
+        return async(() -> {
+            try {
+                String query;
+                if (isbn != null && !isbn.isBlank()) {
+                    query = "isbn:" + isbn;
+                } else if ((title != null && !title.isBlank()) || (author != null && !author.isBlank())) {
+                    StringBuilder sb = new StringBuilder();
+                    if (title != null && !title.isBlank())
+                        sb.append("intitle:").append(title.replace(" ", "+"));
+                    if (author != null && !author.isBlank()) {
+                        if (sb.length() > 0)
+                            sb.append("+");
+                        sb.append("inauthor:").append(author.replace(" ", "+"));
+                    }
+                    query = sb.toString();
+                } else if (q != null && !q.isBlank()) {
+                    query = q;
+                } else {
+                    query = "subject:fiction";
                 }
-                query = sb.toString();
-            } else if (q != null && !q.isBlank()) {
-                query = q;
-            } else {
-                query = "subject:fiction";
-            }
 
-            List<BookDto> results = booksService.searchBooks(query, startIndex, maxResults);
-            return ResponseEntity.ok(results);
-        } catch (Exception e) {
-            logger.error("Error search books", e);
-            return ResponseEntity.status(500).body("Error buscando libros: " + e.getMessage());
-        }
+                if (mode == SearchSource.LOCAL) {
+                    LocalSearchIndex.Result local = booksService.searchLocal(query, startIndex, maxResults);
+                    if (!local.supported()) {
+                        return ResponseEntity.badRequest().body(Map.of("error",
+                                "La búsqueda local no admite esta query (isbn:, inpublisher:...): usa source=remote o auto"));
+                    }
+                    return ok(local.books(), false, "local");
+                }
+                if (mode == SearchSource.AUTO) {
+                    Optional<List<BookDto>> local = booksService.searchLocalIfCovered(query, startIndex, maxResults);
+                    if (local.isPresent()) return ok(local.get(), false, "local");
+                }
+
+                Served<List<BookDto>> results = booksService.searchBooks(query, startIndex, maxResults);
+                return ok(results.value(), results.stale(), "remote");
+            } catch (UpstreamRateLimitedException e) {
+                return rateLimited(e);
+            } catch (UpstreamUnavailableException e) {
+                return unavailable(e);
+            } catch (Exception e) {
+                logger.error("Error search books", e);
+                return ResponseEntity.status(500).body("Error buscando libros: " + e.getMessage());
+            }
+        });
     }
 
     /**
      * Obtener un libro por su Google volume id.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> getById(@PathVariable("id") String id) {
+    public CompletableFuture<ResponseEntity<?>> getById(@PathVariable("id") String id) {
+        return async(() -> {
+            try {
+                Served<BookDto> book = booksService.getBookById(id);
+                if (book.value() == null)
+                    return ResponseEntity.notFound().build();
+                return ok(book.value(), book.stale());
+            } catch (UpstreamRateLimitedException e) {
+                return rateLimited(e);
+            } catch (UpstreamUnavailableException e) {
+                return unavailable(e);
+            } catch (Exception e) {
+                logger.error("Error getting book by id {}", id, e);
+                return ResponseEntity.status(500).body("Error obteniendo libro: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Obtener varios libros por sus volume ids en una sola petición.
+     * Devuelve los encontrados y los errores por id (respuesta parcial).
+     */
+    @GetMapping("/batch")
+    public CompletableFuture<ResponseEntity<?>> getBatch(@RequestParam("ids") List<String> ids) {
+        return async(() -> batch(ids));
+    }
+
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<?>> postBatch(@RequestBody List<String> ids) {
+        return async(() -> batch(ids));
+    }
+
+    private ResponseEntity<?> batch(List<String> ids) {
         try {
-            BookDto book = booksService.getBookById(id);
-            if (book == null)
-                return ResponseEntity.notFound().build();
-            return ResponseEntity.ok(book);
+            BookBatchDto result = booksService.getBooksByIds(ids);
+            return ok(result, result.stale());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
-            logger.error("Error getting book by id {}", id, e);
-            return ResponseEntity.status(500).body("Error obteniendo libro: " + e.getMessage());
+            logger.error("Error getting books batch", e);
+            return ResponseEntity.status(500).body("Error obteniendo libros: " + e.getMessage());
         }
     }
 
     /**
-     * Obtener un libro por ISBN (primer resultado).
+     * Obtener un libro por ISBN (índice local o, si no, primer resultado de Google).
      */
     @GetMapping("/isbn/{isbn}")
-    public ResponseEntity<?> getByIsbn(@PathVariable("isbn") String isbn) {
-        try {
-            List<BookDto> results = booksService.searchBooks("isbn:" + isbn, 0, 1);
+    public CompletableFuture<ResponseEntity<?>> getByIsbn(@PathVariable("isbn") String isbn) {
+        return async(() -> {
+            try {
+                Served<BookDto> book = booksService.getBookByIsbn(isbn);
+                if (book.value() == null) {
+                    return ResponseEntity.notFound().build();
+                }
 
-            if (results == null || results.isEmpty()) {
-                return ResponseEntity.notFound().build();
+                return ok(book.value(), book.stale());
+            } catch (UpstreamRateLimitedException e) {
+                return rateLimited(e);
+            } catch (UpstreamUnavailableException e) {
+                return unavailable(e);
+            } catch (Exception e) {
+                logger.error("Error getting book by ISBN {}", isbn, e);
+                return ResponseEntity.status(500).body("Error obteniendo libro por ISBN: " + e.getMessage());
             }
+        });
+    }
 
-            return ResponseEntity.ok(results.get(0));
-        } catch (Exception e) {
-            logger.error("Error getting book by ISBN {}", isbn, e);
-            return ResponseEntity.status(500).body("Error obteniendo libro por ISBN: " + e.getMessage());
+    // 200; si es una copia anterior (Google no disponible) se marca con X-Stale: true
+    private static ResponseEntity<?> ok(Object body, boolean stale) {
+        return ok(body, stale, null);
+    }
+
+    private static ResponseEntity<?> ok(Object body, boolean stale, String source) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (stale)
+            response.header(STALE_HEADER, "true");
+        if (source != null)
+            response.header(SOURCE_HEADER, source);
+        return response.body(body);
+    }
+
+    private static SearchSource parseSource(String source) {
+        try {
+            return SearchSource.valueOf(source.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Circuito abierto y sin copia anterior: 503 enseguida, sin esperar a Google
+    private static ResponseEntity<?> unavailable(UpstreamUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    // Sin cuota hacia Google: 429 con Retry-After en vez de un 500
+    private static ResponseEntity<?> rateLimited(UpstreamRateLimitedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    /**
+     * Ejecuta el handler en booksExecutor; si está saturado responde 503 enseguida
+     * Sin books.async.virtual-threads se ejecuta en el hilo de Tomcat y se devuelve ya completado
+     */
+    private CompletableFuture<ResponseEntity<?>> async(Supplier<ResponseEntity<?>> handler) {
+        if (!virtualThreads) {
+            return CompletableFuture.completedFuture(handler.get());
+        }
+        try {
+            return CompletableFuture.supplyAsync(handler, booksExecutor);
+        } catch (RejectedExecutionException e) {
+            logger.warn("booksExecutor en su tope de concurrencia, petición rechazada");
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Servicio ocupado, inténtalo de nuevo"));
         }
     }
 }
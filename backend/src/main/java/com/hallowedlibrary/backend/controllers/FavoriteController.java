@@ -1,17 +1,27 @@
 package com.hallowedlibrary.backend.controllers;
 
 import com.hallowedlibrary.backend.dto.FavoriteDto;
+import com.hallowedlibrary.backend.dto.FavoriteImportResultDto;
+import com.hallowedlibrary.backend.dto.FavoritePageDto;
 import com.hallowedlibrary.backend.entities.User;
 import com.hallowedlibrary.backend.services.FavoriteService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Chuleta endpoints:
- * - GET /api/me/library
+ * - GET /api/me/library                       (lista completa; ETag + If-None-Match -> 304)
+ * - GET /api/me/library?limit=50&cursor=...   (paginado: { items, nextCursor })
+ * - GET /api/me/library?author=...            (libros de un autor)
+ * - GET /api/me/library/authors               (autores con nº de libros: [{ author, count }])
  * - POST /api/me/library
+ * - POST /api/me/library/import               (importación masiva: [FavoriteDto, ...])
  * - DELETE /api/me/library/{volumeId}
  */
 @RestController
@@ -24,12 +34,40 @@ public class FavoriteController {
         this.favoriteService = favoriteService;
     }
 
-    // Lista favoritos
+    // Lista favoritos; con limit o cursor se devuelve paginado
+    // ETag = versión de la biblioteca: con If-None-Match vigente responde 304 sin leer favoritos
     @GetMapping
-    public ResponseEntity<List<FavoriteDto>> getMyLibrary(@AuthenticationPrincipal User user) {
+    public ResponseEntity<?> getMyLibrary(@AuthenticationPrincipal User user,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String author,
+            WebRequest request) {
         if (user == null)
             return ResponseEntity.status(401).build();
-        return ResponseEntity.ok(favoriteService.listFavorites(user.getId()));
+        String etag = favoriteService.libraryETag(user.getId());
+        if (request.checkNotModified(etag))
+            return notModified(etag);
+        try {
+            if (author != null)
+                return withETag(etag, favoriteService.listFavoritesByAuthor(user.getId(), author));
+            if (limit == null && cursor == null)
+                return withETag(etag, favoriteService.listFavorites(user.getId()));
+            FavoritePageDto page = favoriteService.listFavoritesPage(user.getId(), cursor, limit);
+            return withETag(etag, page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Autores de la biblioteca agrupados, con su número de libros
+    @GetMapping("/authors")
+    public ResponseEntity<?> getMyAuthors(@AuthenticationPrincipal User user, WebRequest request) {
+        if (user == null)
+            return ResponseEntity.status(401).build();
+        String etag = favoriteService.libraryETag(user.getId());
+        if (request.checkNotModified(etag))
+            return notModified(etag);
+        return withETag(etag, favoriteService.listAuthors(user.getId()));
     }
 
     // Añadir a favoritos
@@ -38,8 +76,26 @@ public class FavoriteController {
             @RequestBody FavoriteDto dto) {
         if (user == null)
             return ResponseEntity.status(401).build();
-        FavoriteDto saved = favoriteService.addFavorite(user.getId(), dto);
-        return ResponseEntity.status(201).body(saved);
+        try {
+            FavoriteDto saved = favoriteService.addFavorite(user.getId(), dto);
+            return ResponseEntity.status(201).body(saved);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Importación masiva; los que ya están en la biblioteca se cuentan como skipped
+    @PostMapping("/import")
+    public ResponseEntity<?> importFavorites(@AuthenticationPrincipal User user,
+            @RequestBody List<FavoriteDto> items) {
+        if (user == null)
+            return ResponseEntity.status(401).build();
+        try {
+            FavoriteImportResultDto result = favoriteService.importFavorites(user.getId(), items);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     // Quitar de favoritos
@@ -52,4 +108,18 @@ public class FavoriteController {
         return ResponseEntity.noContent().build();
     }
 
+    // Respuestas privadas que el cliente debe revalidar siempre con If-None-Match
+    private static ResponseEntity<?> withETag(String etag, Object body) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(body);
+    }
+
+    private static ResponseEntity<?> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .build();
+    }
 }
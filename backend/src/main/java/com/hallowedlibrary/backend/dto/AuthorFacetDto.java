@@ -0,0 +1,6 @@
+package com.hallowedlibrary.backend.dto;
+
+/**
+ * Autor de la biblioteca y cuántos libros suyos hay guardados
+ */
+public record AuthorFacetDto(String author, long count) {}
@@ -0,0 +1,16 @@
+package com.hallowedlibrary.backend.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO para la consulta de varios libros a la vez
+ * books: los encontrados (en el orden pedido)
+ * errors: volumeId -> motivo de los que no se han podido resolver
+ * stale: alguno de los libros es una copia anterior (Google no disponible)
+ */
+public record BookBatchDto(
+        List<BookDto> books,
+        Map<String, String> errors,
+        boolean stale
+) {}
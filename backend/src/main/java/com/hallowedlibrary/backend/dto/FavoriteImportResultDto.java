@@ -0,0 +1,12 @@
+package com.hallowedlibrary.backend.dto;
+
+/**
+ * Resultado de una importación masiva de favoritos
+ * received: elementos recibidos; imported: filas nuevas; skipped: duplicados o ya existentes
+ */
+public record FavoriteImportResultDto(
+        int received,
+        int imported,
+        int skipped,
+        long elapsedMs
+) {}
@@ -0,0 +1,12 @@
+package com.hallowedlibrary.backend.dto;
+
+import java.util.List;
+
+/**
+ * Página de favoritos (paginación por cursor)
+ * nextCursor es null cuando no hay más páginas
+ */
+public record FavoritePageDto(
+        List<FavoriteDto> items,
+        String nextCursor
+) {}
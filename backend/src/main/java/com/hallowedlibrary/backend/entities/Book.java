@@ -1,30 +1,69 @@
 package com.hallowedlibrary.backend.entities;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
 import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
 
+/**
+ * Catálogo local de volúmenes de Google Books (read-through)
+ * Se rellena con lo que devuelve Google y se consulta antes de volver a llamarle
+ * fetchedAt indica cuándo se trajo de Google por última vez (para saber si está obsoleto)
+ */
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = {
+        @Index(name = "idx_books_isbn13", columnList = "isbn13"),
+        @Index(name = "idx_books_isbn10", columnList = "isbn10")
+})
+@Getter
+@Setter
+@NoArgsConstructor
 public class Book {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, length = 255)
-    private String title;
+    @Column(name = "volume_id", nullable = false, unique = true, length = 128)
+    private String volumeId;
 
-    @Column(length = 255)
-    private String author;
+    @Column(columnDefinition = "TEXT")
+    private String title;
 
-    @Column(unique = true, length = 20)
-    private String isbn;
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "authors", nullable = false, columnDefinition = "text[]")
+    private List<String> authors = new ArrayList<>();
 
     @Column(columnDefinition = "TEXT")
-    private String coverUrl;
+    private String publisher;
+
+    @Column(name = "published_date", columnDefinition = "TEXT")
+    private String publishedDate;
 
     @Column(columnDefinition = "TEXT")
     private String description;
 
-    private Integer publishedYear;
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "categories", nullable = false, columnDefinition = "text[]")
+    private List<String> categories = new ArrayList<>();
+
+    @Column(name = "cover_url", columnDefinition = "TEXT")
+    private String coverUrl;
+
+    @Column(length = 20)
+    private String isbn13;
+
+    @Column(length = 20)
+    private String isbn10;
+
+    @Column(name = "fetched_at", nullable = false)
+    private Instant fetchedAt;
 
 }
@@ -1,11 +1,19 @@
 package com.hallowedlibrary.backend.entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
 @Table(name = "favorites", uniqueConstraints = {
         @UniqueConstraint(columnNames = { "user_id", "volume_id" })
+}, indexes = {
+        // Para el listado paginado por cursor (created_at, id)
+        @Index(name = "idx_favorites_user_created_id", columnList = "user_id, created_at DESC, id DESC")
+        // idx_favorites_authors es GIN: no se puede declarar con @Index, va en migrations/016
 })
 public class Favorite {
 
@@ -27,8 +35,10 @@ public class Favorite {
     @Column(name = "miniature", length = 2048)
     private String miniature;
 
-    @Column(name = "authors_text", length = 2048)
-    private String authorsText;
+    // text[] con índice GIN (idx_favorites_authors, ver migrations/016)
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "authors", nullable = false, columnDefinition = "text[]")
+    private List<String> authors = new ArrayList<>();
 
     @Column(name = "created_at", nullable = false)
     private Instant createdAt = Instant.now();
@@ -37,12 +47,12 @@ public class Favorite {
     }
 
     public Favorite(com.hallowedlibrary.backend.entities.User user, String volumeId,
-            String title, String miniature, String authorsText) {
+            String title, String miniature, List<String> authors) {
         this.user = user;
         this.volumeId = volumeId;
         this.title = title;
         this.miniature = miniature;
-        this.authorsText = authorsText;
+        this.authors = authors == null ? new ArrayList<>() : new ArrayList<>(authors);
         this.createdAt = Instant.now();
     }
 
@@ -83,12 +93,12 @@ public class Favorite {
         this.miniature = miniature;
     }
 
-    public String getAuthorsText() {
-        return authorsText;
+    public List<String> getAuthors() {
+        return authors;
     }
 
-    public void setAuthorsText(String authorsText) {
-        this.authorsText = authorsText;
+    public void setAuthors(List<String> authors) {
+        this.authors = authors;
     }
 
     public Instant getCreatedAt() {
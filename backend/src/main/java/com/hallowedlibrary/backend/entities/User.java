@@ -10,6 +10,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,27 +19,35 @@ import lombok.NoArgsConstructor;
 /**
  * Entidad User mapeada a la tabla "users"
  * Uso de Lombok para reducir boilerplate (getters/setters, constructor, builder)
+ * Las restricciones únicas tienen nombre para saber qué campo está repetido al registrarse;
+ * la del email sin distinguir mayúsculas (lower(email)) está en migrations/024_users_unique_normalized.sql
  */
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = User.USERNAME_CONSTRAINT, columnNames = "username"),
+        @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email")
+})
 @Data                // Genera getters/setters, toString, equals, hashCode
 @NoArgsConstructor   // Constructor vacío
 @AllArgsConstructor  // Constructor con todos los campos
 @Builder             // Builder para crear instancias fácilmente
 public class User {
 
+    public static final String USERNAME_CONSTRAINT = "users_username_key";
+    public static final String EMAIL_CONSTRAINT = "users_email_key";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY) // serial / auto increment
     private Long id;
 
-    @Column(nullable = false, unique = true, length = 80)
+    @Column(nullable = false, length = 80)
     private String username;            // username público
 
     @Column(nullable = false, length = 120)
     private String name;                // nombre completo
 
-    @Column(nullable = false, unique = true, length = 255)
-    private String email;               // email (único)
+    @Column(nullable = false, length = 255)
+    private String email;               // email (único, en minúsculas)
 
     @Column(name = "password_hash", nullable = false)
     private String passwordHash;        // hashed password (BCrypt)
@@ -52,4 +61,10 @@ public class User {
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;    // fecha de creación (Hibernate)
+
+    // Versión de la biblioteca (ETag de /api/me/library); solo la cambia UserRepository.incrementLibraryVersion
+    @Builder.Default
+    @Column(name = "library_version", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private long libraryVersion = 0;
 }
@@ -0,0 +1,20 @@
+package com.hallowedlibrary.backend.exceptions;
+
+/**
+ * Excepción runtime para indicar que no hay capacidad para hashear/verificar contraseñas
+ * (cola de passwordExecutor llena o la tarea ha esperado más de lo permitido)
+ * retryAfterSeconds: cuándo merece la pena reintentar
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
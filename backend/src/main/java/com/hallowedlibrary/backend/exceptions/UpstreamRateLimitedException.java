@@ -0,0 +1,20 @@
+package com.hallowedlibrary.backend.exceptions;
+
+/**
+ * Excepción runtime para indicar que no hay cuota para llamar a Google Books
+ * (presupuesto local agotado o Google ha respondido 429)
+ * retryAfterSeconds: cuándo tiene sentido volver a intentarlo
+ */
+public class UpstreamRateLimitedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public UpstreamRateLimitedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
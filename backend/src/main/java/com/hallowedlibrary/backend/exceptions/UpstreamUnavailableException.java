@@ -0,0 +1,20 @@
+package com.hallowedlibrary.backend.exceptions;
+
+/**
+ * Excepción runtime para indicar que Google Books no está disponible
+ * (circuit breaker abierto: no se llega a hacer la petición)
+ * retryAfterSeconds: cuándo se volverá a probar
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public UpstreamUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,9 @@
+package com.hallowedlibrary.backend.repositories;
+
+/**
+ * Proyección de la agregación por autor de la biblioteca (faceta)
+ */
+public interface AuthorCountView {
+    String getAuthor();
+    Long getCount();
+}
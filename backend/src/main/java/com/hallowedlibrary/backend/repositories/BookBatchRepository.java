@@ -0,0 +1,63 @@
+package com.hallowedlibrary.backend.repositories;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.hallowedlibrary.backend.entities.Book;
+
+/**
+ * Upsert de volúmenes del catálogo con batching JDBC real
+ * Una página de resultados de Google se guarda en un solo batch (una sentencia con reWriteBatchedInserts)
+ * en vez de un INSERT ... ON CONFLICT por volumen
+ */
+@Repository
+public class BookBatchRepository {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO books (volume_id, title, authors, publisher, published_date, description,
+                               categories, cover_url, isbn13, isbn10, fetched_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (volume_id) DO UPDATE SET
+                title = EXCLUDED.title,
+                authors = EXCLUDED.authors,
+                publisher = EXCLUDED.publisher,
+                published_date = EXCLUDED.published_date,
+                description = EXCLUDED.description,
+                categories = EXCLUDED.categories,
+                cover_url = EXCLUDED.cover_url,
+                isbn13 = EXCLUDED.isbn13,
+                isbn10 = EXCLUDED.isbn10,
+                fetched_at = EXCLUDED.fetched_at
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BookBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserta o actualiza por volume_id todos los volúmenes en un único batch
+     * Espera volume_id únicos dentro de la lista: con las filas reescritas en un solo INSERT,
+     * Postgres no deja que ON CONFLICT DO UPDATE toque dos veces la misma fila
+     */
+    public void upsertAll(List<Book> books) {
+        if (books.isEmpty()) return;
+        jdbcTemplate.batchUpdate(UPSERT_SQL, books, books.size(), (ps, book) -> {
+            ps.setString(1, book.getVolumeId());
+            ps.setString(2, book.getTitle());
+            ps.setArray(3, ps.getConnection().createArrayOf("text", book.getAuthors().toArray(String[]::new)));
+            ps.setString(4, book.getPublisher());
+            ps.setString(5, book.getPublishedDate());
+            ps.setString(6, book.getDescription());
+            ps.setArray(7, ps.getConnection().createArrayOf("text", book.getCategories().toArray(String[]::new)));
+            ps.setString(8, book.getCoverUrl());
+            ps.setString(9, book.getIsbn13());
+            ps.setString(10, book.getIsbn10());
+            ps.setTimestamp(11, Timestamp.from(book.getFetchedAt()));
+        });
+    }
+}
@@ -1,8 +1,24 @@
 package com.hallowedlibrary.backend.repositories;
 
 import com.hallowedlibrary.backend.entities.Book;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface BookRepository extends JpaRepository<Book, Long> {
-}
 
+    Optional<Book> findByVolumeId(String volumeId);
+
+    List<Book> findByVolumeIdIn(Collection<String> volumeIds);
+
+    Optional<Book> findFirstByIsbn13OrIsbn10(String isbn13, String isbn10);
+
+    // Recorrido completo por páginas (keyset por id) para cargar el índice de búsqueda local
+    @Query("select b from Book b where b.id > :afterId order by b.id")
+    List<Book> findPageAfter(@Param("afterId") long afterId, Pageable page);
+}
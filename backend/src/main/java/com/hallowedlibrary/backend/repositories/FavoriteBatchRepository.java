@@ -0,0 +1,73 @@
+package com.hallowedlibrary.backend.repositories;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.hallowedlibrary.backend.dto.FavoriteDto;
+
+/**
+ * Inserciones masivas de favoritos
+ * Va directo por JdbcTemplate: el id lo genera la BBDD, así que la estrategia IDENTITY de Favorite
+ * no obliga a una sentencia por fila (con Hibernate sí)
+ * Cada bloque de batchSize filas es un único INSERT multi-fila con ON CONFLICT DO NOTHING RETURNING,
+ * que cuenta él mismo las filas insertadas (no depende de los recuentos por sentencia del driver)
+ */
+@Repository
+public class FavoriteBatchRepository {
+
+    private static final int COLUMNS = 6;
+    // Postgres admite como mucho 32767 parámetros por sentencia
+    private static final int MAX_ROWS_PER_STATEMENT = Short.MAX_VALUE / COLUMNS;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public FavoriteBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserta los favoritos en bloques de batchSize; los que ya existían se ignoran
+     * Espera los autores ya normalizados (lista no nula)
+     * Devuelve cuántas filas se han insertado
+     */
+    public int insertIgnoringDuplicates(Long userId, List<FavoriteDto> items, int batchSize) {
+        OffsetDateTime now = OffsetDateTime.ofInstant(Instant.now(), ZoneOffset.UTC);
+        int chunkSize = Math.max(1, Math.min(batchSize, MAX_ROWS_PER_STATEMENT));
+
+        int inserted = 0;
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            List<FavoriteDto> chunk = items.subList(from, Math.min(from + chunkSize, items.size()));
+            Integer count = jdbcTemplate.query(insertSql(chunk.size()), ps -> {
+                int i = 0;
+                for (FavoriteDto dto : chunk) {
+                    ps.setLong(++i, userId);
+                    ps.setString(++i, dto.getVolumeId());
+                    ps.setString(++i, dto.getTitle());
+                    ps.setString(++i, dto.getMiniature());
+                    ps.setArray(++i, ps.getConnection().createArrayOf("text", dto.getAuthors().toArray(String[]::new)));
+                    ps.setObject(++i, now);
+                }
+            }, rs -> rs.next() ? rs.getInt(1) : 0);
+            inserted += count == null ? 0 : count;
+        }
+        return inserted;
+    }
+
+    private static String insertSql(int rows) {
+        return """
+                WITH ins AS (
+                    INSERT INTO favorites (user_id, volume_id, title, miniature, authors, created_at)
+                    VALUES %s
+                    ON CONFLICT (user_id, volume_id) DO NOTHING
+                    RETURNING 1
+                )
+                SELECT count(*) FROM ins
+                """.formatted(String.join(", ", Collections.nCopies(rows, "(?, ?, ?, ?, ?, ?)")));
+    }
+}
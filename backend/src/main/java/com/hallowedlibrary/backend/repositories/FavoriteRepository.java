@@ -1,15 +1,106 @@
 package com.hallowedlibrary.backend.repositories;
 
 import com.hallowedlibrary.backend.entities.Favorite;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
 public interface FavoriteRepository extends JpaRepository<Favorite, Long> {
 
-    List<Favorite> findByUserIdOrderByCreatedAtDesc(Long userId);
+    // Listado completo como proyección (sin entidades gestionadas)
+    @Query("""
+            select f.id as id, f.volumeId as volumeId, f.title as title, f.miniature as miniature,
+                   f.authors as authors, f.createdAt as createdAt
+            from Favorite f
+            where f.user.id = :userId
+            order by f.createdAt desc, f.id desc
+            """)
+    List<FavoriteView> findViewsByUserId(@Param("userId") Long userId);
 
-    Optional<Favorite> findByUserIdAndVolumeId(Long userId, String volumeId);
+    // Primera página (keyset): usa el índice (user_id, created_at desc, id desc)
+    @Query("""
+            select f.id as id, f.volumeId as volumeId, f.title as title, f.miniature as miniature,
+                   f.authors as authors, f.createdAt as createdAt
+            from Favorite f
+            where f.user.id = :userId
+            order by f.createdAt desc, f.id desc
+            """)
+    List<FavoriteView> findPageByUserId(@Param("userId") Long userId, Limit limit);
 
-    void deleteByUserIdAndVolumeId(Long userId, String volumeId);
+    // Páginas siguientes: lo que va después del cursor (createdAt, id)
+    @Query("""
+            select f.id as id, f.volumeId as volumeId, f.title as title, f.miniature as miniature,
+                   f.authors as authors, f.createdAt as createdAt
+            from Favorite f
+            where f.user.id = :userId
+              and (f.createdAt < :createdAt or (f.createdAt = :createdAt and f.id < :id))
+            order by f.createdAt desc, f.id desc
+            """)
+    List<FavoriteView> findPageByUserIdAfter(@Param("userId") Long userId,
+                                             @Param("createdAt") Instant createdAt,
+                                             @Param("id") Long id,
+                                             Limit limit);
+
+    /**
+     * Alta idempotente en una sola sentencia: INSERT ... ON CONFLICT DO NOTHING RETURNING
+     * Solo devuelve la fila si la ha insertado esta llamada; si ya existía vuelve vacío
+     */
+    @Query(value = """
+            with ins as (
+                insert into favorites (user_id, volume_id, title, miniature, authors, created_at)
+                values (:userId, :volumeId, :title, :miniature, cast(:authors as text[]), now())
+                on conflict (user_id, volume_id) do nothing
+                returning id, volume_id, title, miniature, authors, created_at
+            )
+            select id as id, volume_id as volumeId, title as title, miniature as miniature,
+                   authors as authors, created_at as createdAt
+            from ins
+            """, nativeQuery = true)
+    Optional<FavoriteView> insertIfAbsent(@Param("userId") Long userId,
+                                          @Param("volumeId") String volumeId,
+                                          @Param("title") String title,
+                                          @Param("miniature") String miniature,
+                                          @Param("authors") String[] authors);
+
+    // Lectura de una fila concreta como proyección
+    @Query("""
+            select f.id as id, f.volumeId as volumeId, f.title as title, f.miniature as miniature,
+                   f.authors as authors, f.createdAt as createdAt
+            from Favorite f
+            where f.user.id = :userId and f.volumeId = :volumeId
+            """)
+    Optional<FavoriteView> findViewByUserIdAndVolumeId(@Param("userId") Long userId,
+                                                       @Param("volumeId") String volumeId);
+
+    // Favoritos de un autor (authors @> ARRAY[autor] usa el índice GIN)
+    @Query(value = """
+            select f.id as id, f.volume_id as volumeId, f.title as title, f.miniature as miniature,
+                   f.authors as authors, f.created_at as createdAt
+            from favorites f
+            where f.user_id = :userId
+              and f.authors @> array[cast(:author as text)]
+            order by f.created_at desc, f.id desc
+            """, nativeQuery = true)
+    List<FavoriteView> findViewsByUserIdAndAuthor(@Param("userId") Long userId, @Param("author") String author);
+
+    // Autores de la biblioteca con su número de libros
+    @Query(value = """
+            select a.author as author, count(*) as count
+            from favorites f
+            cross join lateral unnest(f.authors) as a(author)
+            where f.user_id = :userId
+            group by a.author
+            order by count(*) desc, a.author
+            """, nativeQuery = true)
+    List<AuthorCountView> countByAuthorForUser(@Param("userId") Long userId);
+
+    // Borrado en una sentencia; devuelve las filas borradas (0 si no estaba)
+    @Modifying
+    @Query("delete from Favorite f where f.user.id = :userId and f.volumeId = :volumeId")
+    int deleteByUserIdAndVolumeId(@Param("userId") Long userId, @Param("volumeId") String volumeId);
 }
@@ -0,0 +1,17 @@
+package com.hallowedlibrary.backend.repositories;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Proyección de solo lectura de Favorite para los listados
+ * (no hidrata entidades gestionadas ni toca la relación con User)
+ */
+public interface FavoriteView {
+    Long getId();
+    String getVolumeId();
+    String getTitle();
+    String getMiniature();
+    List<String> getAuthors();
+    Instant getCreatedAt();
+}
@@ -3,24 +3,41 @@ package com.hallowedlibrary.backend.repositories;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.hallowedlibrary.backend.entities.User;
 
 /**
  * Repositorio JPA para User
- * Define consultas útiles (email/username) y checks de existencia
+ * Define consultas útiles (email/username)
+ * El username es exacto (restricción única users_username_key); el email se compara con lower(...)
+ * para usar el índice único users_email_lower_key (ver migrations/024_users_unique_normalized.sql)
  */
 public interface UserRepository extends JpaRepository<User, Long> {
 
     // Buscar usuario por username
     Optional<User> findByUsername(String username);
 
-    // Buscar usuario por email
-    Optional<User> findByEmail(String email);
-
-    // Comprueba si existe username
-    boolean existsByUsername(String username);
-
-    // Comprueba si existe email
-    boolean existsByEmail(String email);
+    // Buscar usuario por email (sin distinguir mayúsculas)
+    @Query("select u from User u where lower(u.email) = lower(:email)")
+    Optional<User> findByEmail(@Param("email") String email);
+
+    // Sustituye el hash solo si no ha cambiado desde que se leyó (rehash tras login)
+    @Modifying
+    @Transactional
+    @Query("update User u set u.passwordHash = :newHash where u.id = :id and u.passwordHash = :oldHash")
+    int updatePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
+    // Versión de la biblioteca del usuario (lectura por clave primaria)
+    @Query("select u.libraryVersion from User u where u.id = :id")
+    Optional<Long> findLibraryVersion(@Param("id") Long id);
+
+    // Sube la versión de la biblioteca; se une a la transacción que modifica los favoritos
+    @Modifying
+    @Transactional
+    @Query("update User u set u.libraryVersion = u.libraryVersion + 1 where u.id = :id")
+    int incrementLibraryVersion(@Param("id") Long id);
 }
@@ -2,6 +2,7 @@ package com.hallowedlibrary.backend.security;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,7 +13,9 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.hallowedlibrary.backend.entities.User;
-import com.hallowedlibrary.backend.repositories.UserRepository;
+import com.hallowedlibrary.backend.services.UserService;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -23,7 +26,9 @@ import jakarta.servlet.http.HttpServletResponse;
  * Filtro JWT principal
  * - Extrae "Authorization: Bearer <token>"
  * - Valida el token con JwtUtil
- * - Si es válido, carga el User desde la BBDD y lo pone como principal en SecurityContext
+ * - Si es válido, obtiene el User (caché de UserService, BBDD solo en un miss)
+ *   y lo pone como principal en SecurityContext
+ * - Métrica auth.jwt.filter: tiempo del filtro (sin el resto de la cadena) por resultado
  */
 @Component
 public class JwtFilter extends OncePerRequestFilter {
@@ -31,11 +36,13 @@ public class JwtFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(JwtFilter.class);
 
     private final JwtUtil jwtUtil;
-    private final UserRepository userRepository;
+    private final UserService userService;
+    private final MeterRegistry meterRegistry;
 
-    public JwtFilter(JwtUtil jwtUtil, UserRepository userRepository) {
+    public JwtFilter(JwtUtil jwtUtil, UserService userService, MeterRegistry meterRegistry) {
         this.jwtUtil = jwtUtil;
-        this.userRepository = userRepository;
+        this.userService = userService;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
@@ -50,6 +57,8 @@ public class JwtFilter extends OncePerRequestFilter {
         }
 
         String header = request.getHeader("Authorization");
+        long start = System.nanoTime();
+        String outcome = "anonymous";
 
         if (header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7).trim();
@@ -58,8 +67,8 @@ public class JwtFilter extends OncePerRequestFilter {
                 // Validar token y extraer userId
                 Long userId = jwtUtil.validateTokenAndGetUserId(token);
 
-                // Cargar entidad User desde la BBDD
-                User user = userRepository.findById(userId).orElse(null);
+                // Cargar entidad User (caché en memoria; BBDD solo si no está)
+                User user = userService.getCachedById(userId).orElse(null);
 
                 if (user != null) {
                     // Crear Authentication con la entidad User como principal
@@ -67,17 +76,22 @@ public class JwtFilter extends OncePerRequestFilter {
                             new UsernamePasswordAuthenticationToken(user, null, Collections.emptyList());
                     auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(auth);
+                    outcome = "authenticated";
 
                     logger.debug("JwtFilter: usuario autenticado id={} uri={}", user.getId(), request.getRequestURI());
                 } else {
+                    outcome = "user_not_found";
                     logger.debug("JwtFilter: token válido pero no se encontró usuario id={} uri={}", userId, request.getRequestURI());
                 }
             } catch (Exception ex) {
                 // Token inválido o expirado -> no autenticamos
+                outcome = "invalid_token";
                 logger.debug("JwtFilter: validación de token falló: {} (uri={})", ex.getMessage(), request.getRequestURI());
             }
         }
 
+        meterRegistry.timer("auth.jwt.filter", "outcome", outcome)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         chain.doFilter(request, response);
     }
 }
@@ -1,38 +1,72 @@
 package com.hallowedlibrary.backend.security;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.exceptions.TokenExpiredException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 
 /*
  * Utilidad para generar y validar JWT usando HS256
  * Lee la clave secreta desde application.properties (jwt.secret)
+ * El algoritmo y el verificador se construyen una vez al arrancar (son thread-safe)
+ * Los tokens ya verificados se cachean (clave = hash SHA-256 del token) hasta su exp
  */
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
-
     // 24 horas
     private final long EXPIRATION_TIME = 1000L * 60 * 60 * 24;
 
+    private final Algorithm algorithm;
+    private final JWTVerifier verifier;
+
+    // hash del token -> userId + exp, para no repetir la verificación HMAC en cada petición
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    private record VerifiedToken(Long userId, long expiresAtMillis) {}
+
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.cache.max-size:10000}") long cacheMaxSize) {
+        this.algorithm = Algorithm.HMAC256(secret);
+        this.verifier = JWT.require(algorithm).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                // Cada entrada caduca cuando caduca su token
+                .expireAfter(Expiry.creating((String key, VerifiedToken t) ->
+                        Duration.ofMillis(Math.max(0, t.expiresAtMillis() - System.currentTimeMillis()))))
+                .recordStats()
+                .build();
+    }
+
+    // Para exponer sus estadísticas como métricas (MetricsConfig)
+    public Cache<String, ?> cache() {
+        return verifiedTokens;
+    }
+
     /**
      * Genera un token cuyo subject es el userId (Long -> string)
      */
     public String generateToken(Long userId) {
-        Algorithm alg = Algorithm.HMAC256(secret);
         return JWT.create()
                 .withSubject(String.valueOf(userId))
                 .withIssuedAt(new Date())
                 .withExpiresAt(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .sign(alg);
+                .sign(algorithm);
     }
 
     /**
@@ -40,9 +74,34 @@ public class JwtUtil {
      * Lanza JWTVerificationException si el token es inválido o ha expirado
      */
     public Long validateTokenAndGetUserId(String token) throws JWTVerificationException {
-        Algorithm alg = Algorithm.HMAC256(secret);
-        DecodedJWT decoded = JWT.require(alg).build().verify(token);
-        String subject = decoded.getSubject();
-        return Long.parseLong(subject);
+        String key = hash(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > System.currentTimeMillis()) {
+                return cached.userId();
+            }
+            verifiedTokens.invalidate(key);
+            throw new TokenExpiredException("The Token has expired", null);
+        }
+
+        DecodedJWT decoded = verifier.verify(token);
+        Long userId = Long.parseLong(decoded.getSubject());
+
+        // Solo se cachean tokens con exp (los nuestros siempre lo llevan)
+        Date expiresAt = decoded.getExpiresAt();
+        if (expiresAt != null) {
+            verifiedTokens.put(key, new VerifiedToken(userId, expiresAt.getTime()));
+        }
+        return userId;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 está garantizado en cualquier JVM
+            throw new IllegalStateException(e);
+        }
     }
 }
@@ -0,0 +1,197 @@
+package com.hallowedlibrary.backend.services;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import com.hallowedlibrary.backend.dto.BookDto;
+import com.hallowedlibrary.backend.entities.Book;
+import com.hallowedlibrary.backend.repositories.BookBatchRepository;
+import com.hallowedlibrary.backend.repositories.BookRepository;
+
+/**
+ * Catálogo persistente de volúmenes (tabla books)
+ * - Guarda (upsert) lo que llega de Google, en segundo plano para no frenar la petición
+ *   y en un solo batch por página de resultados (ver BookBatchRepository)
+ * - Sirve volúmenes ya conocidos y dice si están obsoletos (books.catalog.stale-after-hours)
+ * - Si la BBDD falla se comporta como un miss: el catálogo nunca rompe los endpoints de libros
+ */
+@Service
+public class BookCatalogService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookCatalogService.class);
+
+    private final BookRepository bookRepository;
+    private final BookBatchRepository bookBatchRepository;
+    private final AsyncTaskExecutor catalogExecutor;
+    private final boolean enabled;
+    private final Duration staleAfter;
+
+    public BookCatalogService(BookRepository bookRepository,
+                              BookBatchRepository bookBatchRepository,
+                              @Qualifier("catalogExecutor") AsyncTaskExecutor catalogExecutor,
+                              @Value("${books.catalog.enabled:true}") boolean enabled,
+                              @Value("${books.catalog.stale-after-hours:168}") long staleAfterHours) {
+        this.bookRepository = bookRepository;
+        this.bookBatchRepository = bookBatchRepository;
+        this.catalogExecutor = catalogExecutor;
+        this.enabled = enabled;
+        this.staleAfter = Duration.ofHours(staleAfterHours);
+    }
+
+    /**
+     * Volumen guardado en el catálogo (obsoleto o no)
+     */
+    public Optional<Book> find(String volumeId) {
+        if (!enabled) return Optional.empty();
+        try {
+            return bookRepository.findByVolumeId(volumeId);
+        } catch (Exception e) {
+            logger.warn("Catálogo: error leyendo volumen {}: {}", volumeId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Volúmenes guardados con esos volume ids, en una consulta (los que no están no aparecen)
+     */
+    public Map<String, BookDto> findAll(Collection<String> volumeIds) {
+        if (!enabled || volumeIds == null || volumeIds.isEmpty()) return Map.of();
+        try {
+            Map<String, BookDto> found = new HashMap<>();
+            for (Book book : bookRepository.findByVolumeIdIn(volumeIds)) found.put(book.getVolumeId(), toDto(book));
+            return found;
+        } catch (Exception e) {
+            logger.warn("Catálogo: error leyendo {} volúmenes: {}", volumeIds.size(), e.getMessage());
+            return Map.of();
+        }
+    }
+
+    /**
+     * Volumen guardado con ese ISBN-13 o ISBN-10 (sin guiones)
+     */
+    public Optional<Book> findByIsbn(String isbn13, String isbn10) {
+        if (!enabled) return Optional.empty();
+        try {
+            return bookRepository.findFirstByIsbn13OrIsbn10(isbn13, isbn10 != null ? isbn10 : isbn13);
+        } catch (Exception e) {
+            logger.warn("Catálogo: error buscando ISBN {}: {}", isbn13, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public boolean isStale(Book book) {
+        return book.getFetchedAt() == null || book.getFetchedAt().plus(staleAfter).isBefore(Instant.now());
+    }
+
+    /**
+     * Guarda los volúmenes en segundo plano (best effort: si la cola está llena se descartan)
+     */
+    public void saveAsync(Collection<BookDto> books) {
+        if (!enabled || books == null || books.isEmpty()) return;
+        List<BookDto> copy = List.copyOf(books);
+        try {
+            catalogExecutor.execute(() -> saveAll(copy));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Catálogo: cola llena, se descartan {} volúmenes", copy.size());
+        }
+    }
+
+    /**
+     * Upsert de un volumen (marca fetchedAt = ahora)
+     */
+    public void save(BookDto dto) {
+        if (dto == null) return;
+        saveAll(List.of(dto));
+    }
+
+    /**
+     * Upsert de varios volúmenes en un solo batch (marca fetchedAt = ahora)
+     * Si un volume id se repite se guarda la última copia; se ordenan por volume id para que
+     * dos batches concurrentes bloqueen las filas en el mismo orden
+     */
+    public void saveAll(Collection<BookDto> books) {
+        if (!enabled || books == null || books.isEmpty()) return;
+        Instant now = Instant.now();
+        Map<String, Book> byVolumeId = new LinkedHashMap<>();
+        for (BookDto dto : books) {
+            if (dto != null && dto.id() != null) byVolumeId.put(dto.id(), toEntity(dto, now));
+        }
+        if (byVolumeId.isEmpty()) return;
+
+        List<Book> rows = byVolumeId.values().stream()
+                .sorted(Comparator.comparing(Book::getVolumeId))
+                .toList();
+        try {
+            bookBatchRepository.upsertAll(rows);
+        } catch (Exception e) {
+            logger.warn("Catálogo: error guardando {} volúmenes: {}", rows.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Recorre todo el catálogo en páginas de pageSize volúmenes; devuelve cuántos se han leído
+     * Si la BBDD falla se para ahí (lo leído hasta entonces ya se ha entregado)
+     */
+    public int forEachPage(int pageSize, Consumer<List<BookDto>> consumer) {
+        if (!enabled) return 0;
+        long afterId = 0;
+        int total = 0;
+        try {
+            while (true) {
+                List<Book> page = bookRepository.findPageAfter(afterId, Pageable.ofSize(pageSize));
+                if (page.isEmpty()) return total;
+                consumer.accept(page.stream().map(this::toDto).toList());
+                total += page.size();
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } catch (Exception e) {
+            logger.warn("Catálogo: error recorriendo volúmenes tras id {}: {}", afterId, e.getMessage());
+            return total;
+        }
+    }
+
+    public BookDto toDto(Book book) {
+        return new BookDto(book.getVolumeId(), book.getTitle(), copyOf(book.getAuthors()),
+                book.getPublisher(), book.getPublishedDate(), book.getDescription(),
+                copyOf(book.getCategories()), book.getCoverUrl(), book.getIsbn13(), book.getIsbn10());
+    }
+
+    private static Book toEntity(BookDto dto, Instant fetchedAt) {
+        Book book = new Book();
+        book.setVolumeId(dto.id());
+        book.setTitle(dto.title());
+        book.setAuthors(copyOf(dto.authors()));
+        book.setPublisher(dto.publisher());
+        book.setPublishedDate(dto.publishedDate());
+        book.setDescription(dto.description());
+        book.setCategories(copyOf(dto.categories()));
+        book.setCoverUrl(dto.miniature());
+        book.setIsbn13(dto.isbn13());
+        book.setIsbn10(dto.isbn10());
+        book.setFetchedAt(fetchedAt);
+        return book;
+    }
+
+    // authors/categories son text[] NOT NULL: lista vacía en vez de null y sin elementos nulos
+    private static List<String> copyOf(List<String> values) {
+        return values == null ? List.of() : values.stream().filter(Objects::nonNull).toList();
+    }
+}
@@ -1,188 +1,590 @@
 package com.hallowedlibrary.backend.services;
 
+import java.io.IOException;
 import java.net.URI;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.hallowedlibrary.backend.dto.BookBatchDto;
 import com.hallowedlibrary.backend.dto.BookDto;
+import com.hallowedlibrary.backend.entities.Book;
+import com.hallowedlibrary.backend.exceptions.UpstreamRateLimitedException;
+import com.hallowedlibrary.backend.exceptions.UpstreamUnavailableException;
 
 /**
  * Servicio que actúa como cliente hacia Google Books API
- * - Construye las URLs
- * - Llama a Google (RestTemplate)
- * - Recibe un JSON y devuelve List<BookDto>
+ * - Llama a Google a través de GoogleBooksClient (pool HTTP/2, timeouts, gzip)
+ * - El JSON se parsea en streaming (GoogleBooksParser) y devuelve List<BookDto>
+ * - Cachea en memoria las búsquedas (tamaño máximo + TTL)
+ * - Cachea en memoria cada volumen por id, rellenada también desde las búsquedas
+ * - Resuelve varios volúmenes a la vez con paralelismo acotado (batch)
+ * - Catálogo persistente (BookCatalogService): lo leído de Google se guarda en BBDD y los
+ *   detalles se sirven desde ahí; si están obsoletos se refrescan en segundo plano
+ * - Índice local de ISBN (IsbnIndex) para resolver /isbn/{isbn} sin buscar en Google
+ * - Búsqueda local (LocalSearchIndex) sobre los volúmenes ya vistos: source=local|remote|auto
+ * - Prefetch opcional de la página siguiente de cada búsqueda (SearchPrefetcher)
+ * - Cuota hacia Google (UpstreamQuota): lo que pide un usuario es INTERACTIVE;
+ *   prefetch y refrescos son BACKGROUND y ceden ante el resto
+ * - Circuit breaker hacia Google: si cae, se sirve la última copia buena (Served.stale)
+ *   y se sigue refrescando en segundo plano, que es lo que vuelve a cerrar el circuito
  */
 @Service
 public class BooksService {
 
     private static final Logger logger = LoggerFactory.getLogger(BooksService.class);
 
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
-    private final String apiKey;
+    private final GoogleBooksClient client;
+    private final BookCatalogService catalog;
+    private final IsbnIndex isbnIndex;
+    private final LocalSearchIndex localIndex;
+    private final SearchPrefetcher prefetcher;
+    private final UpstreamQuota quota;
+    private final AsyncTaskExecutor catalogExecutor;
+
+    // Volúmenes con un refresco en segundo plano ya en marcha
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    // Caché de búsquedas: clave = query normalizada + startIndex + maxResults
+    private final Cache<String, List<BookDto>> searchCache;
+
+    // Caché de volúmenes por Google volume id (independiente de la de búsquedas)
+    private final Cache<String, BookDto> volumeCache;
+
+    // Una sola petición a Google en vuelo por URI; los demás hilos comparten resultado
+    private final SingleFlight<URI, List<BookDto>> searchFlights = new SingleFlight<>();
+    private final SingleFlight<URI, BookDto> volumeFlights = new SingleFlight<>();
+
+    // Circuit breaker de las llamadas a Google y últimas copias buenas (sin TTL) para servir si está abierto
+    private final CircuitBreaker breaker;
+    private final Cache<String, List<BookDto>> staleSearches;
+    private final Cache<String, BookDto> staleVolumes;
+
+    // Batch: executor propio, nº máximo de peticiones a Google en paralelo por batch, límites
+    private final AsyncTaskExecutor fanOutExecutor;
+    private final int batchConcurrency;
+    private final int batchMaxIds;
+    private final long batchTimeoutMs;
+
+    // source=auto: mínimo de coincidencias locales para no llamar a Google, y cuántas veces se decidió cada cosa
+    // La decisión se toma con la primera página y se recuerda por query (normalizada), así todas las páginas
+    // de una misma búsqueda salen del mismo sitio
+    private final int autoMinMatches;
+    private final Cache<String, Boolean> autoDecisions;
+    private final AtomicLong autoLocal = new AtomicLong();
+    private final AtomicLong autoRemote = new AtomicLong();
 
-    public BooksService(RestTemplateBuilder builder,
-                        ObjectMapper objectMapper,
-                        @Value("${google.books.api.key:}") String apiKey) {
-        this.restTemplate = builder.build();
-        this.objectMapper = objectMapper;
-        this.apiKey = (apiKey == null) ? "" : apiKey.trim();
+    /**
+     * De dónde salen los resultados de una búsqueda
+     * LOCAL: solo el índice local; REMOTE: Google (con sus cachés); AUTO: local si hay cobertura suficiente
+     */
+    public enum SearchSource { LOCAL, REMOTE, AUTO }
+
+    public BooksService(GoogleBooksClient client,
+                        BookCatalogService catalog,
+                        IsbnIndex isbnIndex,
+                        LocalSearchIndex localIndex,
+                        SearchPrefetcher prefetcher,
+                        UpstreamQuota quota,
+                        @Qualifier("catalogExecutor") AsyncTaskExecutor catalogExecutor,
+                        @Qualifier("booksFanOutExecutor") AsyncTaskExecutor fanOutExecutor,
+                        @Value("${books.batch.concurrency:8}") int batchConcurrency,
+                        @Value("${books.batch.max-ids:50}") int batchMaxIds,
+                        @Value("${books.batch.timeout-ms:10000}") long batchTimeoutMs,
+                        @Value("${books.cache.search.max-size:1000}") long searchCacheMaxSize,
+                        @Value("${books.cache.search.ttl-seconds:300}") long searchCacheTtlSeconds,
+                        @Value("${books.cache.volume.max-size:10000}") long volumeCacheMaxSize,
+                        @Value("${books.cache.volume.ttl-seconds:3600}") long volumeCacheTtlSeconds,
+                        @Value("${books.cache.stale.max-size:10000}") long staleCacheMaxSize,
+                        @Value("${books.circuit.failure-threshold:5}") int circuitFailureThreshold,
+                        @Value("${books.circuit.open-ms:30000}") long circuitOpenMs,
+                        @Value("${books.local-search.auto-min-matches:40}") int autoMinMatches) {
+        this.client = client;
+        this.catalog = catalog;
+        this.isbnIndex = isbnIndex;
+        this.localIndex = localIndex;
+        this.autoMinMatches = autoMinMatches;
+        this.prefetcher = prefetcher;
+        this.quota = quota;
+        this.catalogExecutor = catalogExecutor;
+        this.fanOutExecutor = fanOutExecutor;
+        this.batchConcurrency = Math.max(1, batchConcurrency);
+        this.batchMaxIds = batchMaxIds;
+        this.batchTimeoutMs = batchTimeoutMs;
+        this.searchCache = Caffeine.newBuilder()
+                .maximumSize(searchCacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(searchCacheTtlSeconds))
+                .recordStats()
+                .build();
+        this.volumeCache = Caffeine.newBuilder()
+                .maximumSize(volumeCacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(volumeCacheTtlSeconds))
+                .recordStats()
+                .build();
+        this.breaker = new CircuitBreaker("google-books", circuitFailureThreshold, circuitOpenMs);
+        this.staleSearches = Caffeine.newBuilder()
+                .maximumSize(staleCacheMaxSize)
+                .build();
+        this.staleVolumes = Caffeine.newBuilder()
+                .maximumSize(staleCacheMaxSize)
+                .build();
+        this.autoDecisions = Caffeine.newBuilder()
+                .maximumSize(searchCacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(searchCacheTtlSeconds))
+                .build();
     }
 
     /**
      * Buscar libros en Google Books
      * q puede ser una query compuesta
      * startIndex y maxResults controlan paginación
+     * Si Google no responde y hay una copia anterior, se devuelve marcada como stale
      */
-    public List<BookDto> searchBooks(String q, int startIndex, int maxResults) throws Exception {
-        if (q == null || q.isBlank()) {
-            // Query por defecto para no devolver nada masivo; se puede ajustar
-            q = "subject:fiction";
-        }
-
-        // Máximo 30 páginas
-        if (maxResults <= 0) maxResults = 20;
-        if (maxResults > 40) maxResults = 30;
-
-        URI uri = UriComponentsBuilder
-                .fromHttpUrl("https://www.googleapis.com/books/v1/volumes")
-                .queryParam("q", q)
-                .queryParam("startIndex", Math.max(0, startIndex))
-                .queryParam("maxResults", maxResults)
-                .queryParam("key", apiKey)
-                .build()
-                .encode()
-                .toUri();
+    public Served<List<BookDto>> searchBooks(String q, int startIndex, int maxResults) throws Exception {
+        q = defaultQuery(q);
+        maxResults = pageSize(maxResults);
+        startIndex = Math.max(0, startIndex);
+
+        String cacheKey = searchCacheKey(q, startIndex, maxResults);
+        List<BookDto> results = searchCache.getIfPresent(cacheKey);
+        if (results != null) {
+            logger.debug("Google Books search cache hit: {}", cacheKey);
+            prefetcher.recordHit(cacheKey);
+        } else {
+            try {
+                results = fetchSearch(q, startIndex, maxResults, UpstreamQuota.Priority.INTERACTIVE);
+            } catch (Exception e) {
+                if (!isUpstreamFailure(e)) throw e;
+                // Con el circuito sin cerrar, el refresco en segundo plano es la llamada de prueba
+                List<BookDto> stale = staleSearches.getIfPresent(cacheKey);
+                if (stale != null || e instanceof UpstreamUnavailableException)
+                    refreshSearchInBackground(cacheKey, q, startIndex, maxResults);
+                if (stale == null) throw e;
+                logger.debug("Google Books no disponible, búsqueda servida stale: {}", cacheKey);
+                return Served.stale(stale);
+            }
+            cacheSearch(cacheKey, results);
+        }
 
-        logger.debug("Google Books search URI: {}", uri);
+        prefetchNextPage(q, startIndex, maxResults, results.size());
+        return Served.fresh(results);
+    }
 
-        String json = restTemplate.getForObject(uri, String.class);
-        if (json == null || json.isBlank()) return Collections.emptyList();
+    /**
+     * Búsqueda solo en el índice local (source=local); nunca llama a Google
+     */
+    public LocalSearchIndex.Result searchLocal(String q, int startIndex, int maxResults) {
+        return localIndex.search(defaultQuery(q), Math.max(0, startIndex), pageSize(maxResults));
+    }
 
-        JsonNode root = objectMapper.readTree(json);
-        JsonNode items = root.path("items");
-        if (!items.isArray()) return Collections.emptyList();
+    /**
+     * source=auto: la página local si la query tiene cobertura suficiente, si no vacío (y se va a Google)
+     * Cobertura suficiente = la query se puede resolver en local y tiene al menos
+     * books.local-search.auto-min-matches coincidencias; no depende de la página pedida, y la decisión
+     * se recuerda por query durante books.cache.search.ttl-seconds para no cambiar de origen a mitad
+     * de la paginación (las páginas más allá de totalMatches salen vacías, como el final de los resultados)
+     */
+    public Optional<List<BookDto>> searchLocalIfCovered(String q, int startIndex, int maxResults) {
+        q = defaultQuery(q);
+        startIndex = Math.max(0, startIndex);
+        maxResults = pageSize(maxResults);
+
+        String decisionKey = normalizeQuery(q);
+        Boolean useLocal = autoDecisions.getIfPresent(decisionKey);
+        LocalSearchIndex.Result local = null;
+        if (useLocal == null) {
+            local = localIndex.search(q, startIndex, maxResults);
+            useLocal = local.supported() && local.totalMatches() >= autoMinMatches;
+            autoDecisions.put(decisionKey, useLocal);
+        }
 
-        List<BookDto> results = new ArrayList<>();
-        for (JsonNode item : items) {
-            String id = item.path("id").asText(null);
-            JsonNode vol = item.path("volumeInfo");
+        if (!useLocal) {
+            autoRemote.incrementAndGet();
+            return Optional.empty();
+        }
+        if (local == null) local = localIndex.search(q, startIndex, maxResults);
+        autoLocal.incrementAndGet();
+        return Optional.of(local.books());
+    }
 
-            String title = vol.path("title").asText(null);
-            // autores
-            List<String> authors = new ArrayList<>();
-            if (vol.has("authors") && vol.get("authors").isArray()) {
-                for (JsonNode a : vol.get("authors")) authors.add(a.asText());
-            }
+    // Query por defecto para no devolver nada masivo; se puede ajustar
+    private static String defaultQuery(String q) {
+        return (q == null || q.isBlank()) ? "subject:fiction" : q;
+    }
 
-            String publisher = vol.path("publisher").asText(null);
-            String publishedDate = vol.path("publishedDate").asText(null);
-            String description = vol.path("description").asText(null);
+    // Máximo 30 páginas
+    private static int pageSize(int maxResults) {
+        if (maxResults <= 0) return 20;
+        if (maxResults > 40) return 30;
+        return maxResults;
+    }
 
-            // categorías
-            List<String> categories = new ArrayList<>();
-            if (vol.has("categories") && vol.get("categories").isArray()) {
-                for (JsonNode c : vol.get("categories")) categories.add(c.asText());
-            }
+    // Si la página venía llena, probablemente se pida la siguiente: se carga en segundo plano
+    private void prefetchNextPage(String q, int startIndex, int maxResults, int resultCount) {
+        if (!prefetcher.isEnabled() || resultCount < maxResults) return;
 
-            // imagen (thumbnail)
-            String thumbnail = null;
-            JsonNode imageLinks = vol.path("imageLinks");
-            if (!imageLinks.isMissingNode()) {
-                thumbnail = imageLinks.path("thumbnail").asText(null);
-                if (thumbnail == null) thumbnail = imageLinks.path("smallThumbnail").asText(null);
-            }
+        int nextIndex = startIndex + maxResults;
+        String nextKey = searchCacheKey(q, nextIndex, maxResults);
+        // asMap() para no contar esta comprobación en las estadísticas de la caché
+        if (searchCache.asMap().containsKey(nextKey)) return;
 
-            // ISBNs
-            String isbn13 = null;
-            String isbn10 = null;
-            JsonNode industry = vol.path("industryIdentifiers");
-            if (industry.isArray()) {
-                for (JsonNode ident : industry) {
-                    String type = ident.path("type").asText("");
-                    String identifier = ident.path("identifier").asText("");
-                    if ("ISBN_13".equalsIgnoreCase(type)) isbn13 = identifier;
-                    if ("ISBN_10".equalsIgnoreCase(type)) isbn10 = identifier;
-                }
-            }
+        prefetcher.schedule(nextKey, () -> {
+            List<BookDto> next = fetchSearch(q, nextIndex, maxResults, UpstreamQuota.Priority.BACKGROUND);
+            cacheSearch(nextKey, next);
+            return next;
+        });
+    }
 
-            BookDto dto = new BookDto(id, title, authors, publisher, publishedDate, description, categories, thumbnail, isbn13, isbn10);
-            results.add(dto);
-        }
+    /**
+     * Estadísticas de las cachés en memoria (hits, misses, evictions...)
+     */
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("search", statsOf(searchCache));
+        stats.put("volumes", statsOf(volumeCache));
+        stats.put("isbn", statsOf(isbnIndex.cache()));
+        Map<String, Object> local = new LinkedHashMap<>(localIndex.getStats());
+        local.put("autoLocal", autoLocal.get());
+        local.put("autoRemote", autoRemote.get());
+        stats.put("local", local);
+        stats.put("prefetch", prefetcher.getStats());
+        stats.put("quota", quota.getStats());
+        stats.put("circuit", breaker.getStats());
+        stats.put("stale", Map.of(
+                "searches", staleSearches.estimatedSize(),
+                "volumes", staleVolumes.estimatedSize()));
+        stats.put("coalesced", Map.of(
+                "search", searchFlights.getCoalescedCount(),
+                "volumes", volumeFlights.getCoalescedCount()));
+        return stats;
+    }
+
+    /**
+     * Llama a Google Books y parsea la página de resultados (sin caché)
+     */
+    private List<BookDto> fetchSearch(String q, int startIndex, int maxResults,
+                                      UpstreamQuota.Priority priority) throws Exception {
+        URI uri = client.searchUri(q, startIndex, maxResults);
+
+        logger.debug("Google Books search URI: {}", uri);
+
+        // En primer plano no se espera a la llamada de prueba del circuito (ni uniéndose a su vuelo)
+        if (priority == UpstreamQuota.Priority.INTERACTIVE) breaker.rejectIfNotClosed();
+
+        // Si ya hay una petición idéntica en curso, esperamos su resultado
+        return searchFlights.execute(uri, () -> requestSearch(uri, priority));
+    }
 
+    private List<BookDto> requestSearch(URI uri, UpstreamQuota.Priority priority) throws Exception {
+        List<BookDto> results = breaker.call(() -> client.fetchVolumes(uri, priority), BooksService::isUpstreamFailure,
+                priority == UpstreamQuota.Priority.BACKGROUND);
+
+        // Así el detalle abierto desde una lista se sirve desde memoria
+        for (BookDto dto : results) {
+            remember(dto);
+        }
+        catalog.saveAsync(results);
         return results;
     }
 
+    private void cacheSearch(String key, List<BookDto> results) {
+        searchCache.put(key, results);
+        staleSearches.put(key, results);
+    }
+
+    /**
+     * Fallos que dicen que Google no está bien (red, timeouts, 5xx) o circuito abierto;
+     * un 4xx o la falta de cuota local no cuentan
+     */
+    static boolean isUpstreamFailure(Throwable e) {
+        return e instanceof UpstreamUnavailableException
+                || e instanceof ResourceAccessException
+                || e instanceof HttpServerErrorException
+                || e instanceof IOException;
+    }
+
+    // Normaliza la query (espacios y mayúsculas) para que variantes triviales compartan entrada
+    private static String searchCacheKey(String q, int startIndex, int maxResults) {
+        return normalizeQuery(q) + "|" + startIndex + "|" + maxResults;
+    }
+
+    private static String normalizeQuery(String q) {
+        return q.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // Cachés con estadísticas, para exponerlas como métricas (MetricsConfig)
+    public Map<String, Cache<?, ?>> caches() {
+        return Map.of("books.search", searchCache, "books.volumes", volumeCache);
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return breaker.getState();
+    }
+
+    public int getInFlightCount() {
+        return searchFlights.getInFlightCount() + volumeFlights.getInFlightCount();
+    }
+
+    private static Map<String, Object> statsOf(Cache<?, ?> cache) {
+        CacheStats s = cache.stats();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("size", cache.estimatedSize());
+        m.put("hits", s.hitCount());
+        m.put("misses", s.missCount());
+        m.put("hitRate", s.hitRate());
+        m.put("evictions", s.evictionCount());
+        return m;
+    }
+
     /**
      * Obtiene información de un volumen por su ID (Google volume id)
+     * Si Google no responde y hay una copia anterior, se devuelve marcada como stale
      */
-    public BookDto getBookById(String volumeId) throws Exception {
-        if (volumeId == null || volumeId.isBlank()) return null;
+    public Served<BookDto> getBookById(String volumeId) throws Exception {
+        if (volumeId == null || volumeId.isBlank()) return Served.fresh(null);
 
-        URI uri = UriComponentsBuilder
-                .fromHttpUrl("https://www.googleapis.com/books/v1/volumes/" + volumeId)
-                .queryParam("key", apiKey)
-                .build()
-                .encode()
-                .toUri();
+        BookDto cached = volumeCache.getIfPresent(volumeId);
+        if (cached != null) {
+            logger.debug("Google Books volume cache hit: {}", volumeId);
+            return Served.fresh(cached);
+        }
 
-        logger.debug("Google Books getById URI: {}", uri);
+        // Catálogo local: si está obsoleto se sirve igualmente y se refresca en segundo plano
+        Optional<Book> stored = catalog.find(volumeId);
+        if (stored.isPresent()) {
+            BookDto book = catalog.toDto(stored.get());
+            remember(book);
+            if (catalog.isStale(stored.get())) refreshInBackground(volumeId);
+            return Served.fresh(book);
+        }
 
-        String json = restTemplate.getForObject(uri, String.class);
-        if (json == null || json.isBlank()) return null;
+        BookDto book;
+        try {
+            book = fetchVolume(volumeId, UpstreamQuota.Priority.INTERACTIVE);
+        } catch (Exception e) {
+            if (!isUpstreamFailure(e)) throw e;
+            // Con el circuito sin cerrar, el refresco en segundo plano es la llamada de prueba
+            BookDto stale = staleVolumes.getIfPresent(volumeId);
+            if (stale != null || e instanceof UpstreamUnavailableException) refreshInBackground(volumeId);
+            if (stale == null) throw e;
+            logger.debug("Google Books no disponible, volumen servido stale: {}", volumeId);
+            return Served.stale(stale);
+        }
+        if (book != null) {
+            remember(book);
+            catalog.saveAsync(List.of(book));
+        }
+        return Served.fresh(book);
+    }
 
-        JsonNode item = objectMapper.readTree(json);
-        if (item.isMissingNode()) return null;
+    /**
+     * Obtiene un libro por ISBN (10 o 13)
+     * - Primero el índice local ISBN -> volume id, y el volumen por getBookById (cachés/catálogo)
+     * - Si no se conoce, busca en Google (isbn:..., 1 resultado)
+     */
+    public Served<BookDto> getBookByIsbn(String isbn) throws Exception {
+        if (isbn == null || isbn.isBlank()) return Served.fresh(null);
 
-        JsonNode vol = item.path("volumeInfo");
+        Optional<String> volumeId = isbnIndex.lookup(isbn);
+        if (volumeId.isPresent()) {
+            Served<BookDto> book = getBookById(volumeId.get());
+            if (book.value() != null) return book;
+        }
 
-        String id = item.path("id").asText(null);
-        String title = vol.path("title").asText(null);
+        Served<List<BookDto>> results = searchBooks("isbn:" + isbn.trim(), 0, 1);
+        BookDto first = results.value().isEmpty() ? null : results.value().get(0);
+        return new Served<>(first, results.stale());
+    }
+
+    // Deja el volumen en la caché, en el índice de ISBN y en el de búsqueda local
+    private void remember(BookDto book) {
+        if (book == null || book.id() == null) return;
+        volumeCache.put(book.id(), book);
+        staleVolumes.put(book.id(), book);
+        isbnIndex.index(book);
+        localIndex.index(book);
+    }
 
-        List<String> authors = new ArrayList<>();
-        if (vol.has("authors") && vol.get("authors").isArray()) {
-            for (JsonNode a : vol.get("authors")) authors.add(a.asText());
+    private void refreshInBackground(String volumeId) {
+        if (!refreshing.add(volumeId)) return;
+        try {
+            catalogExecutor.execute(() -> {
+                try {
+                    BookDto fresh = fetchVolume(volumeId, UpstreamQuota.Priority.BACKGROUND);
+                    if (fresh != null) {
+                        remember(fresh);
+                        catalog.save(fresh);
+                    }
+                } catch (Exception e) {
+                    logger.debug("Refresco de volumen {} fallido: {}", volumeId, e.getMessage());
+                } finally {
+                    refreshing.remove(volumeId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(volumeId);
         }
+    }
 
-        String publisher = vol.path("publisher").asText(null);
-        String publishedDate = vol.path("publishedDate").asText(null);
-        String description = vol.path("description").asText(null);
+    // Con el circuito abierto falla enseguida; al pasar a HALF_OPEN es la llamada de prueba
+    private void refreshSearchInBackground(String key, String q, int startIndex, int maxResults) {
+        String refreshKey = "search:" + key;
+        if (!refreshing.add(refreshKey)) return;
+        try {
+            catalogExecutor.execute(() -> {
+                try {
+                    cacheSearch(key, fetchSearch(q, startIndex, maxResults, UpstreamQuota.Priority.BACKGROUND));
+                } catch (Exception e) {
+                    logger.debug("Refresco de búsqueda {} fallido: {}", key, e.getMessage());
+                } finally {
+                    refreshing.remove(refreshKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(refreshKey);
+        }
+    }
 
-        List<String> categories = new ArrayList<>();
-        if (vol.has("categories") && vol.get("categories").isArray()) {
-            for (JsonNode c : vol.get("categories")) categories.add(c.asText());
+    /**
+     * Obtiene varios volúmenes de una vez
+     * - Los que están en caché se devuelven directamente
+     * - El resto se piden a Google en paralelo, como mucho batchConcurrency a la vez
+     * - Devuelve resultados parciales + errores por id (no encontrado, fallo, timeout)
+     */
+    public BookBatchDto getBooksByIds(List<String> ids) {
+        Set<String> unique = new LinkedHashSet<>();
+        if (ids != null) {
+            for (String id : ids) {
+                if (id != null && !id.isBlank()) unique.add(id.trim());
+            }
+        }
+        if (unique.size() > batchMaxIds) {
+            throw new IllegalArgumentException("Máximo " + batchMaxIds + " ids por petición");
         }
 
-        String thumbnail = null;
-        JsonNode imageLinks = vol.path("imageLinks");
-        if (!imageLinks.isMissingNode()) {
-            thumbnail = imageLinks.path("thumbnail").asText(null);
-            if (thumbnail == null) thumbnail = imageLinks.path("smallThumbnail").asText(null);
+        Map<String, BookDto> found = new ConcurrentHashMap<>();
+        Map<String, String> errors = new ConcurrentHashMap<>();
+        AtomicBoolean anyStale = new AtomicBoolean();
+        Queue<String> pending = new ConcurrentLinkedQueue<>();
+        for (String id : unique) {
+            BookDto cached = volumeCache.getIfPresent(id);
+            if (cached != null) found.put(id, cached);
+            else pending.add(id);
         }
 
-        String isbn13 = null;
-        String isbn10 = null;
-        JsonNode industry = vol.path("industryIdentifiers");
-        if (industry.isArray()) {
-            for (JsonNode ident : industry) {
-                String type = ident.path("type").asText("");
-                String identifier = ident.path("identifier").asText("");
-                if ("ISBN_13".equalsIgnoreCase(type)) isbn13 = identifier;
-                if ("ISBN_10".equalsIgnoreCase(type)) isbn10 = identifier;
+        // N workers que van sacando ids de la cola: paralelismo acotado sin bloquear hilos en semáforos
+        // Pasado el plazo (o cancelado el lote) dejan de sacar ids y no se hacen más llamadas a Google
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchTimeoutMs);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Consumer<String> fetchOne = id -> {
+            try {
+                Served<BookDto> book = getBookById(id);
+                if (book.stale()) anyStale.set(true);
+                if (book.value() != null) found.put(id, book.value());
+                else errors.put(id, "No encontrado");
+            } catch (UpstreamRateLimitedException e) {
+                errors.put(id, "Límite de Google Books alcanzado, reintentar en "
+                        + e.getRetryAfterSeconds() + " s");
+            } catch (UpstreamUnavailableException e) {
+                errors.put(id, "Google Books no disponible");
+            } catch (Exception e) {
+                logger.debug("Batch: error obteniendo volumen {}: {}", id, e.getMessage());
+                errors.put(id, "Error obteniendo libro: " + e.getMessage());
+            }
+        };
+        Supplier<String> nextId = () -> cancelled.get() || System.nanoTime() - deadline >= 0 ? null : pending.poll();
+
+        int workers = Math.min(batchConcurrency, pending.size());
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            Runnable worker = () -> {
+                String id;
+                while ((id = nextId.get()) != null) {
+                    fetchOne.accept(id);
+                }
+            };
+            try {
+                tasks.add(CompletableFuture.runAsync(worker, fanOutExecutor));
+            } catch (RejectedExecutionException e) {
+                // Executor saturado: el hilo actual resuelve un solo id en lugar de este worker;
+                // el resto queda para los workers que sí arrancaron (o acaba como timeout)
+                String id = nextId.get();
+                if (id != null) fetchOne.accept(id);
             }
         }
 
-        return new BookDto(id, title, authors, publisher, publishedDate, description, categories, thumbnail, isbn13, isbn10);
+        try {
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0]))
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Batch: timeout tras {} ms", batchTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Los workers capturan sus propias excepciones
+            logger.error("Batch: error inesperado", e);
+        } finally {
+            // Los workers que sigan en marcha terminan su llamada actual y no cogen más ids
+            cancelled.set(true);
+            pending.clear();
+        }
+
+        // Respuesta en el orden pedido; lo que no ha terminado a tiempo cuenta como error
+        List<BookDto> books = new ArrayList<>();
+        Map<String, String> orderedErrors = new LinkedHashMap<>();
+        for (String id : unique) {
+            BookDto book = found.get(id);
+            if (book != null) books.add(book);
+            else orderedErrors.put(id, errors.getOrDefault(id, "Timeout"));
+        }
+        return new BookBatchDto(books, orderedErrors, anyStale.get());
+    }
+
+    /**
+     * Llama a Google Books y parsea un volumen (sin caché)
+     */
+    private BookDto fetchVolume(String volumeId, UpstreamQuota.Priority priority) throws Exception {
+        URI uri = client.volumeUri(volumeId);
+
+        logger.debug("Google Books getById URI: {}", uri);
+
+        if (priority == UpstreamQuota.Priority.INTERACTIVE) breaker.rejectIfNotClosed();
+
+        return volumeFlights.execute(uri, () -> requestVolume(uri, priority));
+    }
+
+    private BookDto requestVolume(URI uri, UpstreamQuota.Priority priority) throws Exception {
+        return breaker.call(() -> client.fetchVolume(uri, priority), BooksService::isUpstreamFailure,
+                priority == UpstreamQuota.Priority.BACKGROUND);
     }
 }
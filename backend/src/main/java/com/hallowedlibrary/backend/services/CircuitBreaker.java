@@ -0,0 +1,157 @@
+package com.hallowedlibrary.backend.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hallowedlibrary.backend.exceptions.UpstreamUnavailableException;
+
+/**
+ * Circuit breaker sencillo para las llamadas a Google:
+ * - CLOSED: todo pasa; tras failureThreshold fallos seguidos se abre
+ * - OPEN: se falla enseguida (UpstreamUnavailableException) durante openMillis
+ * - HALF_OPEN: pasa una sola llamada de prueba; si va bien se cierra, si falla vuelve a OPEN
+ *   Solo pueden ser la prueba las llamadas que la admiten (refrescos en segundo plano); el resto falla
+ *   enseguida para servir la copia stale mientras tanto
+ * Las excepciones que no son fallo del upstream (p.ej. un 404) no cuentan
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+
+    // Estado (protegido por this)
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean trialInFlight;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, openMillis));
+    }
+
+    /**
+     * Ejecuta la llamada si el circuito lo permite
+     * isFailure decide qué excepciones cuentan como fallo del upstream
+     */
+    public <T> T call(Callable<T> call, Predicate<Throwable> isFailure) throws Exception {
+        return call(call, isFailure, true);
+    }
+
+    /**
+     * Igual, pero con allowTrial=false la llamada nunca es la de prueba de HALF_OPEN: se rechaza
+     */
+    public <T> T call(Callable<T> call, Predicate<Throwable> isFailure, boolean allowTrial) throws Exception {
+        boolean trial = acquire(allowTrial);
+        boolean settled = false;
+        try {
+            T value = call.call();
+            onSuccess();
+            settled = true;
+            return value;
+        } catch (Exception e) {
+            if (isFailure.test(e)) {
+                onFailure();
+                settled = true;
+            }
+            throw e;
+        } finally {
+            // Excepciones que no cuentan y también Errors: la prueba no puede quedarse tomada
+            if (!settled) release(trial);
+        }
+    }
+
+    /**
+     * Para llamadas en primer plano: si el circuito no está cerrado falla enseguida,
+     * sin esperar a la llamada de prueba que pueda estar en curso
+     */
+    public synchronized void rejectIfNotClosed() {
+        if (state == State.CLOSED) return;
+        rejected.incrementAndGet();
+        throw unavailable();
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openNanos) return State.HALF_OPEN;
+        return state;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        synchronized (this) {
+            m.put("state", getState().name());
+            m.put("consecutiveFailures", consecutiveFailures);
+        }
+        m.put("opened", opened.get());
+        m.put("rejected", rejected.get());
+        return m;
+    }
+
+    // true si esta llamada es la de prueba en HALF_OPEN
+    private synchronized boolean acquire(boolean allowTrial) {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < openNanos) {
+                rejected.incrementAndGet();
+                throw unavailable();
+            }
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN) {
+            if (!allowTrial || trialInFlight) {
+                rejected.incrementAndGet();
+                throw unavailable();
+            }
+            trialInFlight = true;
+            return true;
+        }
+        return false;
+    }
+
+    // Retry-After: lo que queda de OPEN, o 1 s si ya toca (o hay en curso) la llamada de prueba
+    private UpstreamUnavailableException unavailable() {
+        long remaining = state == State.OPEN ? openNanos - (System.nanoTime() - openedAtNanos) : 0;
+        return new UpstreamUnavailableException("Google Books no disponible",
+                Math.max(1, (long) Math.ceil(remaining / 1_000_000_000.0)));
+    }
+
+    private synchronized void onSuccess() {
+        if (state != State.CLOSED) logger.info("Circuito {} cerrado", name);
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    private synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                opened.incrementAndGet();
+                logger.warn("Circuito {} abierto tras {} fallos", name, consecutiveFailures);
+            }
+            state = State.OPEN;
+            openedAtNanos = System.nanoTime();
+        }
+        trialInFlight = false;
+    }
+
+    // La llamada no dice nada de la salud del upstream: solo se libera la prueba
+    private synchronized void release(boolean trial) {
+        if (trial) trialInFlight = false;
+    }
+}
@@ -1,84 +1,251 @@
 package com.hallowedlibrary.backend.services;
 
+import com.hallowedlibrary.backend.dto.AuthorFacetDto;
 import com.hallowedlibrary.backend.dto.FavoriteDto;
-import com.hallowedlibrary.backend.entities.Favorite;
-import com.hallowedlibrary.backend.entities.User;
+import com.hallowedlibrary.backend.dto.FavoriteImportResultDto;
+import com.hallowedlibrary.backend.dto.FavoritePageDto;
+import com.hallowedlibrary.backend.repositories.FavoriteBatchRepository;
 import com.hallowedlibrary.backend.repositories.FavoriteRepository;
-import com.hallowedlibrary.backend.repositories.UserRepository;
+import com.hallowedlibrary.backend.repositories.FavoriteView;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * añadir, listar y borrar favoritos
+ * El listado se lee como proyección (FavoriteView); también paginado por cursor (createdAt, id)
+ * Importación masiva con INSERT multi-fila (FavoriteBatchRepository)
+ * Cada escritura que cambia algo sube la versión de la biblioteca (LibraryVersions -> ETag)
+ * Métricas: favorites.query (tag query) y favorites.insert (tag mode)
  */
 @Service
 public class FavoriteService {
 
+    private static final Logger logger = LoggerFactory.getLogger(FavoriteService.class);
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final FavoriteRepository favoriteRepository;
-    private final UserRepository userRepository;
+    private final FavoriteBatchRepository favoriteBatchRepository;
+    private final LibraryVersions libraryVersions;
+    private final MeterRegistry meterRegistry;
+    private final int importBatchSize;
+    private final int importMaxItems;
 
     public FavoriteService(FavoriteRepository favoriteRepository,
-            UserRepository userRepository) {
+            FavoriteBatchRepository favoriteBatchRepository,
+            LibraryVersions libraryVersions,
+            MeterRegistry meterRegistry,
+            @Value("${favorites.import.batch-size:500}") int importBatchSize,
+            @Value("${favorites.import.max-items:5000}") int importMaxItems) {
         this.favoriteRepository = favoriteRepository;
-        this.userRepository = userRepository;
+        this.favoriteBatchRepository = favoriteBatchRepository;
+        this.libraryVersions = libraryVersions;
+        this.meterRegistry = meterRegistry;
+        this.importBatchSize = importBatchSize;
+        this.importMaxItems = importMaxItems;
+    }
+
+    // ETag de la biblioteca del usuario (lee users.library_version, no los favoritos)
+    public String libraryETag(Long userId) {
+        return libraryVersions.etag(userId);
     }
 
-    // Listar favoritos
+    // Listar favoritos (todos)
     public List<FavoriteDto> listFavorites(Long userId) {
-        return favoriteRepository.findByUserIdOrderByCreatedAtDesc(userId)
+        return queryTimer("list").record(() -> favoriteRepository.findViewsByUserId(userId))
                 .stream()
-                .map(f -> new FavoriteDto(f.getVolumeId(), f.getTitle(), f.getMiniature(),
-                        f.getAuthorsText() == null ? List.of()
-                                : List.of(f.getAuthorsText().split("\\|"))))
+                .map(FavoriteService::toDto)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Listar favoritos paginado por cursor (keyset)
+     * - cursor null -> primera página
+     * - el coste no depende de la posición ni del tamaño de la biblioteca
+     */
+    public FavoritePageDto listFavoritesPage(Long userId, String cursor, Integer limit) {
+        int size = (limit == null || limit <= 0) ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+
+        // Se pide uno de más para saber si hay página siguiente
+        List<FavoriteView> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = queryTimer("page").record(() -> favoriteRepository.findPageByUserId(userId, Limit.of(size + 1)));
+        } else {
+            Cursor c = decodeCursor(cursor);
+            rows = queryTimer("page").record(() ->
+                    favoriteRepository.findPageByUserIdAfter(userId, c.createdAt(), c.id(), Limit.of(size + 1)));
+        }
+
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            FavoriteView last = rows.get(size - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+
+        List<FavoriteDto> items = rows.stream().map(FavoriteService::toDto).collect(Collectors.toList());
+        return new FavoritePageDto(items, nextCursor);
+    }
+
     /**
      * Añadir favorito.
      * - Si ya existe para userId + volumeId -> devuelve el DTO existente.
      * - Si no existe -> se crea y se devuelve.
+     * Va en una sola sentencia (INSERT ... ON CONFLICT DO NOTHING RETURNING), sin cargar el usuario:
+     * si el usuario no existe salta la FK.
+     * La versión de la biblioteca solo sube si se ha insertado la fila.
      */
     @Transactional
     public FavoriteDto addFavorite(Long userId, FavoriteDto dto) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
-
-        // Si ya existe, devolver DTO existente
-        var existingOpt = favoriteRepository.findByUserIdAndVolumeId(userId, dto.getVolumeId());
-        if (existingOpt.isPresent()) {
-            Favorite existing = existingOpt.get();
-            return new FavoriteDto(existing.getVolumeId(), existing.getTitle(), existing.getMiniature(),
-                    existing.getAuthorsText() == null ? List.of()
-                            : List.of(existing.getAuthorsText().split("\\|")));
+        if (dto == null || dto.getVolumeId() == null || dto.getVolumeId().isBlank()) {
+            throw new IllegalArgumentException("volumeId requerido");
         }
 
-        String authorsText = null;
-        if (dto.getAuthors() != null && !dto.getAuthors().isEmpty()) {
-            authorsText = String.join("|", dto.getAuthors());
+        try {
+            Optional<FavoriteView> inserted = insertTimer("single").record(() ->
+                    favoriteRepository.insertIfAbsent(userId, dto.getVolumeId(), dto.getTitle(),
+                            dto.getMiniature(), authorsArray(dto.getAuthors())));
+            if (inserted.isPresent()) {
+                libraryVersions.bump(userId);
+                return toDto(inserted.get());
+            }
+            // Ya estaba: la biblioteca no cambia y se devuelve la fila existente
+            return favoriteRepository.findViewByUserIdAndVolumeId(userId, dto.getVolumeId())
+                    .map(FavoriteService::toDto)
+                    .orElseThrow(() -> new IllegalStateException("No se pudo guardar el favorito"));
+        } catch (DataIntegrityViolationException ex) {
+            if (isForeignKeyViolation(ex)) throw new IllegalArgumentException("Usuario no encontrado");
+            throw ex;
         }
+    }
 
-        Favorite fav = new Favorite(user, dto.getVolumeId(), dto.getTitle(), dto.getMiniature(), authorsText);
+    /**
+     * Importación masiva (p.ej. migración desde otra app de lectura)
+     * - Deduplica la entrada por volumeId (se queda con el primero)
+     * - Inserta en bloques de favorites.import.batch-size filas; los que ya estaban en la biblioteca se ignoran
+     */
+    @Transactional
+    public FavoriteImportResultDto importFavorites(Long userId, List<FavoriteDto> items) {
+        if (items == null) items = List.of();
+        if (items.size() > importMaxItems) {
+            throw new IllegalArgumentException("Máximo " + importMaxItems + " libros por importación");
+        }
 
-        try {
-            Favorite saved = favoriteRepository.save(fav);
-            return new FavoriteDto(saved.getVolumeId(), saved.getTitle(), saved.getMiniature(),
-                    saved.getAuthorsText() == null ? List.of() : List.of(saved.getAuthorsText().split("\\|")));
-        } catch (DataIntegrityViolationException ex) {
-            var recovered = favoriteRepository.findByUserIdAndVolumeId(userId, dto.getVolumeId())
-                    .orElseThrow(() -> ex);
-            return new FavoriteDto(recovered.getVolumeId(), recovered.getTitle(), recovered.getMiniature(),
-                    recovered.getAuthorsText() == null ? List.of() : List.of(recovered.getAuthorsText().split("\\|")));
+        Map<String, FavoriteDto> unique = new LinkedHashMap<>();
+        for (FavoriteDto dto : items) {
+            if (dto == null || dto.getVolumeId() == null || dto.getVolumeId().isBlank()) continue;
+            unique.putIfAbsent(dto.getVolumeId().trim(), dto);
+        }
+        List<FavoriteDto> rows = unique.entrySet().stream()
+                .map(e -> new FavoriteDto(e.getKey(), e.getValue().getTitle(), e.getValue().getMiniature(),
+                        List.of(authorsArray(e.getValue().getAuthors()))))
+                .collect(Collectors.toList());
+
+        long start = System.nanoTime();
+        int imported = 0;
+        if (!rows.isEmpty()) {
+            imported = favoriteBatchRepository.insertIgnoringDuplicates(userId, rows, importBatchSize);
         }
+        long elapsedNanos = System.nanoTime() - start;
+        insertTimer("import").record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (imported > 0) libraryVersions.bump(userId);
+
+        long elapsedMs = elapsedNanos / 1_000_000;
+        logger.info("Importación de favoritos user={} filas={} nuevas={} en {} ms",
+                userId, rows.size(), imported, elapsedMs);
+
+        return new FavoriteImportResultDto(items.size(), imported, items.size() - imported, elapsedMs);
     }
 
-    // Quitar favorito
+    // Favoritos de un autor (coincidencia exacta con el nombre guardado)
+    public List<FavoriteDto> listFavoritesByAuthor(Long userId, String author) {
+        if (author == null || author.isBlank()) throw new IllegalArgumentException("author requerido");
+        return queryTimer("author").record(() -> favoriteRepository.findViewsByUserIdAndAuthor(userId, author.trim()))
+                .stream()
+                .map(FavoriteService::toDto)
+                .collect(Collectors.toList());
+    }
+
+    // Autores de la biblioteca con su número de libros, de más a menos
+    public List<AuthorFacetDto> listAuthors(Long userId) {
+        return queryTimer("authors").record(() -> favoriteRepository.countByAuthorForUser(userId)).stream()
+                .map(a -> new AuthorFacetDto(a.getAuthor(), a.getCount()))
+                .collect(Collectors.toList());
+    }
+
+    // Quitar favorito; la versión de la biblioteca solo sube si había algo que borrar
     @Transactional
     public void removeFavorite(Long userId, String volumeId) {
-        favoriteRepository.deleteByUserIdAndVolumeId(userId, volumeId);
+        if (favoriteRepository.deleteByUserIdAndVolumeId(userId, volumeId) > 0) {
+            libraryVersions.bump(userId);
+        }
+    }
+
+    // 23503 = foreign_key_violation en Postgres
+    private static boolean isForeignKeyViolation(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && "23503".equals(sql.getSQLState())) return true;
+        }
+        return false;
+    }
+
+    private Timer queryTimer(String query) {
+        return meterRegistry.timer("favorites.query", "query", query);
+    }
+
+    private Timer insertTimer(String mode) {
+        return meterRegistry.timer("favorites.insert", "mode", mode);
+    }
+
+    static FavoriteDto toDto(FavoriteView f) {
+        return new FavoriteDto(f.getVolumeId(), f.getTitle(), f.getMiniature(),
+                f.getAuthors() == null ? List.of() : f.getAuthors());
+    }
+
+    // Autores sin nulos ni vacíos, recortados, tal cual se guardan en favorites.authors
+    private static String[] authorsArray(List<String> authors) {
+        if (authors == null) return new String[0];
+        return authors.stream()
+                .filter(a -> a != null && !a.isBlank())
+                .map(String::trim)
+                .toArray(String[]::new);
+    }
+
+    // Cursor opaco: base64url("<createdAt ISO>|<id>")
+    private record Cursor(Instant createdAt, Long id) {}
+
+    private static String encodeCursor(Instant createdAt, Long id) {
+        String raw = createdAt.toString() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            return new Cursor(Instant.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
     }
 
 }
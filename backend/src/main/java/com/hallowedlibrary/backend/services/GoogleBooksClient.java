@@ -0,0 +1,224 @@
+package com.hallowedlibrary.backend.services;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import com.hallowedlibrary.backend.dto.BookDto;
+import com.hallowedlibrary.backend.exceptions.UpstreamRateLimitedException;
+
+/**
+ * Transporte hacia Google Books API
+ * - Construye las URLs (base configurable)
+ * - Ejecuta la petición con el RestTemplate de GoogleBooksClientConfig
+ * - Descomprime gzip, limita el tamaño de la respuesta y la parsea en streaming
+ * - Cada llamada consume cuota (UpstreamQuota); un 429 de Google se traduce en
+ *   UpstreamRateLimitedException con el Retry-After
+ * - Métricas: latencia y status de Google, tiempo de parseo, bytes y nº de resultados
+ *   (tags: operation = search | volume, status, outcome)
+ */
+@Component
+public class GoogleBooksClient {
+
+    private static final String OP_SEARCH = "search";
+    private static final String OP_VOLUME = "volume";
+
+    private final RestTemplate restTemplate;
+    private final GoogleBooksParser parser;
+    private final String baseUrl;
+    private final String apiKey;
+    private final long maxResponseBytes;
+    private final UpstreamQuota quota;
+    private final int maxRetries;
+    private final MeterRegistry meterRegistry;
+
+    public GoogleBooksClient(@Qualifier("googleBooksRestTemplate") RestTemplate restTemplate,
+                             GoogleBooksParser parser,
+                             UpstreamQuota quota,
+                             MeterRegistry meterRegistry,
+                             @Value("${google.books.api.base-url:https://www.googleapis.com/books/v1}") String baseUrl,
+                             @Value("${google.books.api.key:}") String apiKey,
+                             @Value("${google.books.client.max-response-bytes:2097152}") long maxResponseBytes,
+                             @Value("${google.books.quota.max-retries:1}") int maxRetries) {
+        this.restTemplate = restTemplate;
+        this.parser = parser;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.apiKey = (apiKey == null) ? "" : apiKey.trim();
+        this.maxResponseBytes = maxResponseBytes;
+        this.quota = quota;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.meterRegistry = meterRegistry;
+    }
+
+    public URI searchUri(String q, int startIndex, int maxResults) {
+        return UriComponentsBuilder
+                .fromHttpUrl(baseUrl + "/volumes")
+                .queryParam("q", q)
+                .queryParam("startIndex", startIndex)
+                .queryParam("maxResults", maxResults)
+                .queryParam("key", apiKey)
+                .build()
+                .encode()
+                .toUri();
+    }
+
+    public URI volumeUri(String volumeId) {
+        return UriComponentsBuilder
+                .fromHttpUrl(baseUrl + "/volumes/" + volumeId)
+                .queryParam("key", apiKey)
+                .build()
+                .encode()
+                .toUri();
+    }
+
+    /**
+     * Página de resultados de búsqueda
+     */
+    public List<BookDto> fetchVolumes(URI uri, UpstreamQuota.Priority priority) {
+        List<BookDto> results = get(OP_SEARCH, uri, priority, parser::parseVolumes);
+        if (results == null) results = Collections.emptyList();
+        meterRegistry.summary("books.upstream.results", "operation", OP_SEARCH).record(results.size());
+        return results;
+    }
+
+    /**
+     * Un volumen suelto
+     */
+    public BookDto fetchVolume(URI uri, UpstreamQuota.Priority priority) {
+        return get(OP_VOLUME, uri, priority, parser::parseVolume);
+    }
+
+    /**
+     * GET con cuota: tras un 429 las peticiones interactivas reintentan (max-retries)
+     * si la pausa cabe en la espera máxima de UpstreamQuota; las de segundo plano no
+     */
+    private <T> T get(String operation, URI uri, UpstreamQuota.Priority priority, BodyParser<T> bodyParser) {
+        ResponseExtractor<T> extractor = response -> {
+            LimitedInputStream in = body(response);
+            long start = System.nanoTime();
+            T value = bodyParser.parse(in);
+            meterRegistry.timer("books.upstream.parse", "operation", operation)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            meterRegistry.summary("books.upstream.response.bytes", "operation", operation).record(in.read);
+            return value;
+        };
+
+        int attempt = 0;
+        while (true) {
+            quota.acquire(priority);
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String status = "IO_ERROR";
+            try {
+                T result = restTemplate.execute(uri, HttpMethod.GET, null, extractor);
+                status = "200";
+                quota.onSuccess();
+                return result;
+            } catch (HttpStatusCodeException e) {
+                status = String.valueOf(e.getStatusCode().value());
+                if (!(e instanceof HttpClientErrorException.TooManyRequests tooMany)) throw e;
+                long pauseSeconds = quota.onRateLimited(retryAfterSeconds(tooMany.getResponseHeaders()));
+                if (priority == UpstreamQuota.Priority.BACKGROUND || attempt++ >= maxRetries
+                        || !quota.isPauseWithinMaxWait()) {
+                    throw new UpstreamRateLimitedException("Google Books ha limitado las peticiones", pauseSeconds);
+                }
+            } finally {
+                sample.stop(meterRegistry.timer("books.upstream.requests",
+                        "operation", operation, "status", status, "outcome", outcome(status)));
+            }
+        }
+    }
+
+    // Parsea el body ya descomprimido y limitado
+    @FunctionalInterface
+    private interface BodyParser<T> {
+        T parse(InputStream body) throws IOException;
+    }
+
+    private static String outcome(String status) {
+        if (status.startsWith("2")) return "SUCCESS";
+        if (status.startsWith("4")) return "CLIENT_ERROR";
+        if (status.startsWith("5")) return "SERVER_ERROR";
+        return "UNKNOWN";
+    }
+
+    // Retry-After en segundos o como fecha HTTP; 0 si no viene o no se entiende
+    static long retryAfterSeconds(HttpHeaders headers) {
+        String value = headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) return 0;
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, Duration.between(ZonedDateTime.now(at.getZone()), at).getSeconds());
+            } catch (DateTimeParseException ignored) {
+                return 0;
+            }
+        }
+    }
+
+    private LimitedInputStream body(ClientHttpResponse response) throws IOException {
+        InputStream in = response.getBody();
+        String encoding = response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (encoding != null && encoding.trim().equalsIgnoreCase("gzip")) {
+            in = new GZIPInputStream(in);
+        }
+        return new LimitedInputStream(in, maxResponseBytes);
+    }
+
+    // Corta la lectura si la respuesta (ya descomprimida) supera el límite configurado
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long read;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) count(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            int n = super.read(buf, off, len);
+            if (n > 0) count(n);
+            return n;
+        }
+
+        private void count(int n) throws IOException {
+            read += n;
+            if (limit > 0 && read > limit) {
+                throw new IOException("Respuesta de Google Books demasiado grande (> " + limit + " bytes)");
+            }
+        }
+    }
+}
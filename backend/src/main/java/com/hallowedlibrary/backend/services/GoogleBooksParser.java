@@ -0,0 +1,185 @@
+package com.hallowedlibrary.backend.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hallowedlibrary.backend.dto.BookDto;
+
+/**
+ * Parser en streaming (JsonParser) para las respuestas de Google Books
+ * - Lee directamente del body, sin pasar por String ni JsonNode
+ * - Solo recoge los campos de volumeInfo que usamos en BookDto
+ * - Salta el resto (saleInfo, accessInfo, searchInfo...) sin materializarlo
+ */
+@Component
+public class GoogleBooksParser {
+
+    private final JsonFactory jsonFactory;
+
+    public GoogleBooksParser(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Parsea una respuesta de búsqueda ({ "items": [ volumen, ... ] })
+     */
+    public List<BookDto> parseVolumes(InputStream body) throws IOException {
+        if (body == null) return Collections.emptyList();
+
+        try (JsonParser p = jsonFactory.createParser(body)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return Collections.emptyList();
+
+            List<BookDto> results = Collections.emptyList();
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("items".equals(field) && value == JsonToken.START_ARRAY) {
+                    results = new ArrayList<>();
+                    while (p.nextToken() != JsonToken.END_ARRAY) {
+                        if (p.currentToken() == JsonToken.START_OBJECT) {
+                            results.add(readVolume(p));
+                        } else {
+                            p.skipChildren();
+                        }
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+            return Collections.unmodifiableList(results);
+        }
+    }
+
+    /**
+     * Parsea un volumen suelto (respuesta de /volumes/{id})
+     */
+    public BookDto parseVolume(InputStream body) throws IOException {
+        if (body == null) return null;
+
+        try (JsonParser p = jsonFactory.createParser(body)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return null;
+            return readVolume(p);
+        }
+    }
+
+    // Espera el parser situado en el START_OBJECT del volumen y lo consume entero
+    private BookDto readVolume(JsonParser p) throws IOException {
+        VolumeFields v = new VolumeFields();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("id".equals(field)) {
+                v.id = readString(p);
+            } else if ("volumeInfo".equals(field) && value == JsonToken.START_OBJECT) {
+                readVolumeInfo(p, v);
+            } else {
+                p.skipChildren();
+            }
+        }
+        return new BookDto(v.id, v.title, v.authors, v.publisher, v.publishedDate, v.description,
+                v.categories, v.thumbnail != null ? v.thumbnail : v.smallThumbnail, v.isbn13, v.isbn10);
+    }
+
+    private void readVolumeInfo(JsonParser p, VolumeFields v) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (field) {
+                case "title" -> v.title = readString(p);
+                case "publisher" -> v.publisher = readString(p);
+                case "publishedDate" -> v.publishedDate = readString(p);
+                case "description" -> v.description = readString(p);
+                case "authors" -> readStrings(p, v.authors);
+                case "categories" -> readStrings(p, v.categories);
+                case "imageLinks" -> {
+                    if (value == JsonToken.START_OBJECT) readImageLinks(p, v);
+                    else p.skipChildren();
+                }
+                case "industryIdentifiers" -> {
+                    if (value == JsonToken.START_ARRAY) readIdentifiers(p, v);
+                    else p.skipChildren();
+                }
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    private void readImageLinks(JsonParser p, VolumeFields v) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            if ("thumbnail".equals(field)) v.thumbnail = readString(p);
+            else if ("smallThumbnail".equals(field)) v.smallThumbnail = readString(p);
+            else p.skipChildren();
+        }
+    }
+
+    private void readIdentifiers(JsonParser p, VolumeFields v) throws IOException {
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (p.currentToken() != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            String type = "";
+            String identifier = "";
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                if ("type".equals(field)) type = orEmpty(readString(p));
+                else if ("identifier".equals(field)) identifier = orEmpty(readString(p));
+                else p.skipChildren();
+            }
+            if ("ISBN_13".equalsIgnoreCase(type)) v.isbn13 = identifier;
+            if ("ISBN_10".equalsIgnoreCase(type)) v.isbn10 = identifier;
+        }
+    }
+
+    private void readStrings(JsonParser p, List<String> target) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return;
+        }
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            String s = readString(p);
+            if (s != null) target.add(s);
+        }
+    }
+
+    // Valor escalar como texto; null para null y para objetos/arrays (que se saltan)
+    private String readString(JsonParser p) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.START_OBJECT || t == JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return null;
+        }
+        return p.getValueAsString(null);
+    }
+
+    private static String orEmpty(String s) {
+        return s == null ? "" : s;
+    }
+
+    // Acumulador mutable mientras se recorre un volumen
+    private static final class VolumeFields {
+        String id;
+        String title;
+        List<String> authors = new ArrayList<>();
+        String publisher;
+        String publishedDate;
+        String description;
+        List<String> categories = new ArrayList<>();
+        String thumbnail;
+        String smallThumbnail;
+        String isbn13;
+        String isbn10;
+    }
+}
@@ -0,0 +1,122 @@
+package com.hallowedlibrary.backend.services;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hallowedlibrary.backend.dto.BookDto;
+import com.hallowedlibrary.backend.entities.Book;
+
+/**
+ * Índice local ISBN -> Google volume id
+ * - Clave normalizada: siempre ISBN-13 sin guiones (los ISBN-10 se convierten)
+ * - Se rellena con los industryIdentifiers de cada volumen parseado
+ * - En memoria (acotado); si books.isbn-index.persistent=true, en un miss se consulta el catálogo (tabla books)
+ */
+@Component
+public class IsbnIndex {
+
+    private final Cache<String, String> index;
+    private final BookCatalogService catalog;
+    private final boolean persistent;
+
+    public IsbnIndex(BookCatalogService catalog,
+                     @Value("${books.isbn-index.max-size:100000}") long maxSize,
+                     @Value("${books.isbn-index.persistent:true}") boolean persistent) {
+        this.catalog = catalog;
+        this.persistent = persistent;
+        this.index = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Registra los ISBN del volumen
+     */
+    public void index(BookDto book) {
+        if (book == null || book.id() == null) return;
+        String isbn13 = normalize(book.isbn13());
+        if (isbn13 != null) index.put(isbn13, book.id());
+        String fromIsbn10 = normalize(book.isbn10());
+        if (fromIsbn10 != null) index.put(fromIsbn10, book.id());
+    }
+
+    /**
+     * Volume id para un ISBN (10 o 13, con o sin guiones)
+     */
+    public Optional<String> lookup(String isbn) {
+        String key = normalize(isbn);
+        if (key == null) return Optional.empty();
+
+        String volumeId = index.getIfPresent(key);
+        if (volumeId != null) return Optional.of(volumeId);
+
+        if (persistent) {
+            Optional<Book> stored = catalog.findByIsbn(key, toIsbn10(key));
+            if (stored.isPresent()) {
+                index.put(key, stored.get().getVolumeId());
+                return Optional.of(stored.get().getVolumeId());
+            }
+        }
+        return Optional.empty();
+    }
+
+    public Cache<String, String> cache() {
+        return index;
+    }
+
+    /**
+     * Quita guiones/espacios y devuelve el ISBN-13 equivalente, o null si no es un ISBN
+     */
+    public static String normalize(String raw) {
+        if (raw == null) return null;
+        StringBuilder sb = new StringBuilder(13);
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c == '-' || c == ' ') continue;
+            sb.append(Character.toUpperCase(c));
+        }
+        String s = sb.toString();
+
+        if (s.length() == 13 && allDigits(s, 13)) return s;
+        if (s.length() == 10 && allDigits(s, 9) && (Character.isDigit(s.charAt(9)) || s.charAt(9) == 'X')) {
+            return toIsbn13(s);
+        }
+        return null;
+    }
+
+    // ISBN-10 (normalizado) -> ISBN-13 con prefijo 978
+    static String toIsbn13(String isbn10) {
+        String base = "978" + isbn10.substring(0, 9);
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            int d = base.charAt(i) - '0';
+            sum += (i % 2 == 0) ? d : d * 3;
+        }
+        int check = (10 - sum % 10) % 10;
+        return base + check;
+    }
+
+    // ISBN-13 (normalizado) -> ISBN-10; null si no empieza por 978 (los 979 no tienen ISBN-10)
+    static String toIsbn10(String isbn13) {
+        if (isbn13 == null || !isbn13.startsWith("978")) return null;
+        String base = isbn13.substring(3, 12);
+        int sum = 0;
+        for (int i = 0; i < 9; i++) {
+            sum += (base.charAt(i) - '0') * (10 - i);
+        }
+        int check = (11 - sum % 11) % 11;
+        return base + (check == 10 ? "X" : String.valueOf(check));
+    }
+
+    private static boolean allDigits(String s, int count) {
+        for (int i = 0; i < count; i++) {
+            if (!Character.isDigit(s.charAt(i))) return false;
+        }
+        return true;
+    }
+}
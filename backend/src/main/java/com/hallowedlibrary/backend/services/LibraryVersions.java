@@ -0,0 +1,40 @@
+package com.hallowedlibrary.backend.services;
+
+import org.springframework.stereotype.Component;
+
+import com.hallowedlibrary.backend.repositories.UserRepository;
+
+/**
+ * Versión de la biblioteca de cada usuario, para ETag / If-None-Match en /api/me/library
+ * - Persistida en users.library_version (ver migrations/028_users_library_version.sql):
+ *   todas las instancias ven la misma versión y sobrevive a reinicios
+ * - Comprobarla es una lectura por clave primaria, sin tocar la tabla favorites
+ * - Se sube en la misma transacción que modifica los favoritos, así que un ETag nuevo
+ *   nunca acompaña a datos viejos y un cambio nunca queda sin versión nueva
+ * - El ETag lleva el id de usuario: la URL es la misma para todos y una caché compartida
+ *   no debe confundir la versión N de un usuario con la de otro
+ */
+@Component
+public class LibraryVersions {
+
+    private final UserRepository userRepository;
+
+    public LibraryVersions(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * ETag actual de la biblioteca del usuario (entre comillas, listo para la cabecera)
+     */
+    public String etag(Long userId) {
+        long version = userRepository.findLibraryVersion(userId).orElse(0L);
+        return "\"" + userId + "-" + version + "\"";
+    }
+
+    /**
+     * Sube la versión de la biblioteca del usuario; llamar dentro de la transacción que la modifica
+     */
+    public void bump(Long userId) {
+        userRepository.incrementLibraryVersion(userId);
+    }
+}
@@ -0,0 +1,502 @@
+package com.hallowedlibrary.backend.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import com.hallowedlibrary.backend.dto.BookDto;
+
+/**
+ * Índice invertido en memoria sobre los volúmenes ya vistos (búsqueda local, sin llamar a Google)
+ * - Campos: título (peso 3), autores (2.5), categorías (1.5) y descripción (1, solo los primeros términos)
+ * - Términos en minúsculas y sin acentos; se descartan palabras vacías y términos de 1 carácter
+ * - Consultas con la sintaxis que usamos con Google: términos sueltos (AND), intitle:, inauthor:, subject:;
+ *   el operador vale para todo lo unido con '+' (intitle:harry+potter); cualquier otro operador
+ *   (isbn:, inpublisher:...) no se puede resolver en local
+ * - Ranking: suma de peso del término en los campos que pide la query * idf; empates por orden de indexación
+ * - Por volumen solo se guardan el id y los campos de listado; la página de resultados se lee del catálogo
+ *   (y si aún no está ahí se sirve con esos campos)
+ * - Se rellena con cada volumen que pasa por BooksService y, al arrancar, con el catálogo (tabla books)
+ * - Acotado (books.local-search.max-docs): al superarlo se olvidan los más antiguos
+ * - Lecturas concurrentes, escrituras exclusivas (ReadWriteLock); el análisis del texto se hace fuera del lock
+ */
+@Component
+public class LocalSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalSearchIndex.class);
+
+    // Campos (bits de la máscara de cada término de la query)
+    static final int TITLE = 1;
+    static final int AUTHORS = 2;
+    static final int CATEGORIES = 4;
+    static final int DESCRIPTION = 8;
+    static final int ANY_FIELD = TITLE | AUTHORS | CATEGORIES | DESCRIPTION;
+
+    // Peso de cada campo, en el orden de sus bits
+    private static final float[] FIELD_WEIGHTS = { 3f, 2.5f, 1.5f, 1f };
+    // HARMONIC[tf] = 1 + 1/2 + ... + 1/tf, aproxima 1 + ln(tf)
+    private static final float[] HARMONIC = new float[256];
+
+    static {
+        for (int tf = 1; tf < HARMONIC.length; tf++) HARMONIC[tf] = HARMONIC[tf - 1] + 1f / tf;
+    }
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "the", "of", "and", "an", "to", "in", "on", "for", "with", "by", "at", "from", "is", "or",
+            "el", "la", "los", "las", "un", "una", "unos", "unas", "de", "del", "al", "en", "por", "para",
+            "con", "sin", "que", "se", "su", "sus", "lo", "le", "les", "es", "no");
+
+    private final BookCatalogService catalog;
+    private final AsyncTaskExecutor catalogExecutor;
+    private final boolean enabled;
+    private final int maxDocs;
+    private final int maxDescriptionTerms;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // docId -> volumen (null = borrado o sustituido); los docId crecen con cada indexación
+    private final ArrayList<Doc> docs = new ArrayList<>();
+    private final HashMap<String, Integer> docIds = new HashMap<>();
+    private final HashMap<String, Postings> postings = new HashMap<>();
+    private int live;
+    // Primer docId que puede seguir vivo (para olvidar los más antiguos sin recorrer desde 0)
+    private int oldest;
+
+    private final AtomicLong indexed = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+
+    public LocalSearchIndex(BookCatalogService catalog,
+                            @Qualifier("catalogExecutor") AsyncTaskExecutor catalogExecutor,
+                            @Value("${books.local-search.enabled:true}") boolean enabled,
+                            @Value("${books.local-search.max-docs:100000}") int maxDocs,
+                            @Value("${books.local-search.max-description-terms:200}") int maxDescriptionTerms) {
+        this.catalog = catalog;
+        this.catalogExecutor = catalogExecutor;
+        this.enabled = enabled;
+        this.maxDocs = Math.max(1, maxDocs);
+        this.maxDescriptionTerms = maxDescriptionTerms;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Resultado de una búsqueda local
+     * supported = false: la query usa operadores que solo entiende Google (books vacío)
+     * totalMatches: cuántos volúmenes cumplen la query (no solo los de la página)
+     */
+    public record Result(List<BookDto> books, int totalMatches, boolean supported) {
+
+        static Result unsupported() {
+            return new Result(List.of(), 0, false);
+        }
+    }
+
+    /**
+     * Indexa (o reindexa si ha cambiado) un volumen
+     */
+    public void index(BookDto book) {
+        if (!enabled || book == null || book.id() == null) return;
+
+        // Lo normal es volver a ver el mismo volumen sin cambios: se comprueba sin analizar ni bloquear escrituras
+        lock.readLock().lock();
+        try {
+            Integer previous = docIds.get(book.id());
+            if (previous != null && docs.get(previous).sameAs(book)) return;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<String, Term> terms = analyzeDocument(book);
+        Doc doc = Doc.of(book);
+        lock.writeLock().lock();
+        try {
+            Integer previous = docIds.get(book.id());
+            if (previous != null) {
+                if (docs.get(previous).sameAs(book)) return;
+                docs.set(previous, null);
+                live--;
+            }
+
+            int docId = docs.size();
+            docs.add(doc);
+            docIds.put(book.id(), docId);
+            live++;
+            for (Map.Entry<String, Term> e : terms.entrySet()) {
+                postings.computeIfAbsent(e.getKey(), k -> new Postings()).add(docId, e.getValue().tfs);
+            }
+
+            while (live > maxDocs) evictOldest();
+            // Con más de la mitad de huecos se reconstruye (coste amortizado)
+            if (docs.size() > 1024 && live < docs.size() / 2) compact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        indexed.incrementAndGet();
+    }
+
+    public void indexAll(Iterable<BookDto> books) {
+        for (BookDto book : books) index(book);
+    }
+
+    /**
+     * Busca en el índice; devuelve la página [startIndex, startIndex + maxResults) por relevancia
+     */
+    public Result search(String query, int startIndex, int maxResults) {
+        if (!enabled) return Result.unsupported();
+        List<QueryTerm> terms = analyzeQuery(query);
+        if (terms == null || terms.isEmpty()) return Result.unsupported();
+        queries.incrementAndGet();
+
+        int limit = startIndex + maxResults;
+        // Min-heap con los "limit" mejores: el peor arriba para poder sustituirlo
+        PriorityQueue<Hit> top = new PriorityQueue<>(Math.max(1, limit),
+                Comparator.comparingDouble(Hit::score).thenComparing(Hit::docId, Comparator.reverseOrder()));
+        int matches = 0;
+        List<Doc> page;
+
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[terms.size()];
+            for (int i = 0; i < terms.size(); i++) {
+                lists[i] = postings.get(terms.get(i).term);
+                if (lists[i] == null) return new Result(List.of(), 0, true);
+            }
+
+            // Se recorre la lista más corta y se buscan sus docId en las demás; como los docId crecen,
+            // cada lista guarda por dónde va y se avanza a saltos (galloping) desde ahí
+            Integer[] order = new Integer[lists.length];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, Comparator.comparingInt(i -> lists[i].size));
+            float[] idf = new float[lists.length];
+            for (int i = 0; i < lists.length; i++) idf[i] = idf(lists[i].size);
+
+            // Solo puntúan los campos de la máscara de cada término; peso 0 = no aparece en ellos
+            int[] cursors = new int[lists.length];
+            Postings driver = lists[order[0]];
+            int driverMask = terms.get(order[0]).mask;
+            for (int p = 0; p < driver.size; p++) {
+                int docId = driver.ids[p];
+                if (docs.get(docId) == null) continue;
+                float driverWeight = weight(driver.tfs[p], driverMask);
+                if (driverWeight == 0) continue;
+
+                double score = driverWeight * idf[order[0]];
+                boolean all = true;
+                for (int k = 1; k < order.length && all; k++) {
+                    int t = order[k];
+                    int at = lists[t].seek(cursors[t], docId);
+                    cursors[t] = at < 0 ? -at - 1 : at;
+                    float w = at < 0 ? 0 : weight(lists[t].tfs[at], terms.get(t).mask);
+                    if (w == 0) all = false;
+                    else score += w * idf[t];
+                }
+                if (!all) continue;
+
+                matches++;
+                if (limit <= 0) continue;
+                if (top.size() < limit) {
+                    top.add(new Hit(docId, score));
+                } else if (score > top.peek().score()) {
+                    top.poll();
+                    top.add(new Hit(docId, score));
+                }
+            }
+
+            List<Hit> ranked = new ArrayList<>(top);
+            ranked.sort(Comparator.comparingDouble(Hit::score).reversed().thenComparingInt(Hit::docId));
+            page = new ArrayList<>(Math.max(0, ranked.size() - startIndex));
+            for (int i = startIndex; i < ranked.size(); i++) page.add(docs.get(ranked.get(i).docId()));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new Result(Collections.unmodifiableList(load(page)), matches, true);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("docs", live);
+            stats.put("terms", postings.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("indexed", indexed.get());
+        stats.put("queries", queries.get());
+        stats.put("compactions", compactions.get());
+        return stats;
+    }
+
+    /**
+     * Al arrancar, carga en segundo plano lo que ya hay en el catálogo (por páginas, sin bloquear el arranque)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpFromCatalog() {
+        if (!enabled || catalog == null || catalogExecutor == null) return;
+        try {
+            catalogExecutor.execute(() -> {
+                long start = System.nanoTime();
+                int count = catalog.forEachPage(500, this::indexAll);
+                logger.info("Búsqueda local: {} volúmenes del catálogo indexados en {} ms",
+                        count, (System.nanoTime() - start) / 1_000_000);
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Búsqueda local: no se pudo cargar el catálogo (executor saturado)");
+        }
+    }
+
+    /**
+     * Volúmenes completos de la página, del catálogo en una sola consulta (fuera del lock)
+     * Los que aún no están guardados (el catálogo se escribe en segundo plano) van con los campos de listado
+     */
+    private List<BookDto> load(List<Doc> page) {
+        if (page.isEmpty()) return List.of();
+        Map<String, BookDto> stored = catalog == null ? Map.of() : catalog.findAll(page.stream().map(Doc::id).toList());
+        List<BookDto> books = new ArrayList<>(page.size());
+        for (Doc doc : page) {
+            BookDto book = stored.get(doc.id());
+            books.add(book != null ? book : doc.toDto());
+        }
+        return books;
+    }
+
+    // Con el write lock tomado
+    private void evictOldest() {
+        while (oldest < docs.size() && docs.get(oldest) == null) oldest++;
+        if (oldest >= docs.size()) return;
+        Doc evicted = docs.set(oldest, null);
+        docIds.remove(evicted.id());
+        live--;
+        oldest++;
+    }
+
+    // Con el write lock tomado: renumera los docId vivos y descarta los postings de documentos borrados
+    private void compact() {
+        int[] remap = new int[docs.size()];
+        ArrayList<Doc> compacted = new ArrayList<>(live);
+        for (int i = 0; i < docs.size(); i++) {
+            Doc doc = docs.get(i);
+            if (doc == null) {
+                remap[i] = -1;
+            } else {
+                remap[i] = compacted.size();
+                compacted.add(doc);
+                docIds.put(doc.id(), remap[i]);
+            }
+        }
+        postings.values().removeIf(p -> p.remap(remap) == 0);
+        docs.clear();
+        docs.addAll(compacted);
+        oldest = 0;
+        compactions.incrementAndGet();
+    }
+
+    // BM25: idf = ln(1 + (N - df + 0.5) / (df + 0.5)); df incluye postings de documentos borrados (aproximado)
+    private float idf(int df) {
+        return (float) Math.log(1 + (Math.max(live, df) - df + 0.5) / (df + 0.5));
+    }
+
+    private Map<String, Term> analyzeDocument(BookDto book) {
+        Map<String, Term> terms = new HashMap<>();
+        addField(terms, book.title(), TITLE, Integer.MAX_VALUE);
+        if (book.authors() != null) {
+            for (String author : book.authors()) addField(terms, author, AUTHORS, Integer.MAX_VALUE);
+        }
+        if (book.categories() != null) {
+            for (String category : book.categories()) addField(terms, category, CATEGORIES, Integer.MAX_VALUE);
+        }
+        addField(terms, book.description(), DESCRIPTION, maxDescriptionTerms);
+        return terms;
+    }
+
+    // Cuenta las apariciones del término en el campo (un byte por campo, hasta 255)
+    private static void addField(Map<String, Term> terms, String text, int field, int maxTerms) {
+        if (text == null || text.isEmpty()) return;
+        int shift = 8 * Integer.numberOfTrailingZeros(field);
+        int count = 0;
+        for (String token : tokenize(text)) {
+            if (count++ >= maxTerms) break;
+            Term term = terms.computeIfAbsent(token, k -> new Term());
+            if (((term.tfs >>> shift) & 0xFF) < 0xFF) term.tfs += 1 << shift;
+        }
+    }
+
+    // Peso del término en los campos de mask a partir de sus apariciones por campo
+    static float weight(int tfs, int mask) {
+        float weight = 0;
+        for (int f = 0; f < FIELD_WEIGHTS.length; f++) {
+            if ((mask & (1 << f)) != 0) weight += FIELD_WEIGHTS[f] * HARMONIC[(tfs >>> (8 * f)) & 0xFF];
+        }
+        return weight;
+    }
+
+    // null si la query no se puede resolver en local
+    static List<QueryTerm> analyzeQuery(String query) {
+        if (query == null || query.isBlank()) return null;
+        List<QueryTerm> terms = new ArrayList<>();
+        Map<String, Integer> seen = new HashMap<>();
+        // Los espacios separan términos sueltos; dentro de un trozo, el operador vale para lo que le sigue
+        // unido con '+' hasta el siguiente operador (BooksController une así intitle:/inauthor:)
+        for (String part : query.trim().split("\\s+")) {
+            int mask = ANY_FIELD;
+            for (String segment : part.split("\\+")) {
+                if (segment.isEmpty()) continue;
+                String text = segment;
+                int colon = segment.indexOf(':');
+                if (colon > 0) {
+                    String operator = segment.substring(0, colon).toLowerCase(Locale.ROOT);
+                    switch (operator) {
+                        case "intitle" -> mask = TITLE;
+                        case "inauthor" -> mask = AUTHORS;
+                        case "subject" -> mask = CATEGORIES;
+                        default -> {
+                            return null;
+                        }
+                    }
+                    text = segment.substring(colon + 1);
+                }
+                addQueryTerms(terms, seen, text, mask);
+            }
+        }
+        return terms;
+    }
+
+    private static void addQueryTerms(List<QueryTerm> terms, Map<String, Integer> seen, String text, int mask) {
+        for (String token : tokenize(text)) {
+            // El mismo término dos veces (p.ej. intitle:x inauthor:x): vale en cualquiera de los campos
+            Integer at = seen.get(token);
+            if (at != null) {
+                QueryTerm existing = terms.get(at);
+                terms.set(at, new QueryTerm(token, existing.mask | mask));
+            } else {
+                seen.put(token, terms.size());
+                terms.add(new QueryTerm(token, mask));
+            }
+        }
+    }
+
+    /**
+     * Minúsculas, sin acentos, partido por lo que no sea letra o dígito; sin palabras vacías
+     */
+    static List<String> tokenize(String text) {
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD).toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i <= folded.length(); i++) {
+            char c = i < folded.length() ? folded.charAt(i) : ' ';
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+            } else if (sb.length() > 0) {
+                String token = sb.toString();
+                if (token.length() > 1 && !STOP_WORDS.contains(token)) tokens.add(token);
+                sb.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    record QueryTerm(String term, int mask) {}
+
+    private record Hit(int docId, double score) {}
+
+    // Apariciones del término en el documento: un byte por campo, en el orden de sus bits
+    private static final class Term {
+        int tfs;
+    }
+
+    /**
+     * Lo que el índice guarda de cada volumen: id, campos de listado y la huella del BookDto completo
+     * (para no reindexar un volumen que llega sin cambios); descripción, ISBN, etc. se leen del catálogo
+     */
+    private record Doc(String id, String title, List<String> authors, String publishedDate, String miniature,
+                       int fingerprint) {
+
+        static Doc of(BookDto book) {
+            return new Doc(book.id(), book.title(), book.authors() == null ? List.of() : List.copyOf(book.authors()),
+                    book.publishedDate(), book.miniature(), book.hashCode());
+        }
+
+        boolean sameAs(BookDto book) {
+            return fingerprint == book.hashCode() && Objects.equals(title, book.title())
+                    && Objects.equals(miniature, book.miniature()) && Objects.equals(publishedDate, book.publishedDate());
+        }
+
+        BookDto toDto() {
+            return new BookDto(id, title, authors, null, publishedDate, null, List.of(), miniature, null, null);
+        }
+    }
+
+    // Postings de un término: docId crecientes con las apariciones por campo
+    private static final class Postings {
+        int[] ids = new int[4];
+        int[] tfs = new int[4];
+        int size;
+
+        void add(int docId, int fieldTfs) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                tfs = Arrays.copyOf(tfs, capacity);
+            }
+            ids[size] = docId;
+            tfs[size] = fieldTfs;
+            size++;
+        }
+
+        // Posición de docId a partir de from (como Arrays.binarySearch: negativo = -(inserción) - 1)
+        int seek(int from, int docId) {
+            int bound = 1;
+            while (from + bound < size && ids[from + bound] < docId) bound <<= 1;
+            int lo = from + (bound >> 1);
+            return Arrays.binarySearch(ids, lo, Math.min(from + bound + 1, size), docId);
+        }
+
+        // Aplica la renumeración de compact(); devuelve cuántos quedan
+        int remap(int[] remap) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int to = remap[ids[i]];
+                if (to < 0) continue;
+                ids[kept] = to;
+                tfs[kept] = tfs[i];
+                kept++;
+            }
+            size = kept;
+            return kept;
+        }
+    }
+}
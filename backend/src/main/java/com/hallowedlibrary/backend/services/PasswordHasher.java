@@ -0,0 +1,122 @@
+package com.hallowedlibrary.backend.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.hallowedlibrary.backend.exceptions.PasswordHashingBusyException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Ejecuta el BCrypt de login y signup en passwordExecutor (ver AsyncConfig), fuera de los hilos de Tomcat
+ * - Control de admisión: con la cola llena se rechaza enseguida (PasswordHashingBusyException -> 503)
+ * - Una tarea que ha esperado en cola más de auth.password.timeout-ms se descarta sin gastar CPU,
+ *   y el llamante deja de esperar pasado ese mismo tiempo
+ * - needsRehash: el hash guardado tiene un coste distinto del configurado (auth.password.bcrypt-strength)
+ * - Métricas: auth.password.check{outcome}, auth.password.encode, auth.password.queue (espera en cola)
+ *   y auth.password.rejected{reason}
+ */
+@Component
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final AsyncTaskExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final int strength;
+    private final long timeoutMs;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          @Qualifier("passwordExecutor") AsyncTaskExecutor executor,
+                          MeterRegistry meterRegistry,
+                          @Value("${auth.password.bcrypt-strength:10}") int strength,
+                          @Value("${auth.password.timeout-ms:3000}") long timeoutMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.strength = strength;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Comprueba una contraseña (raw) contra su hash BCrypt
+     */
+    public CompletableFuture<Boolean> matches(String rawPassword, String passwordHash) {
+        return submit(() -> {
+            long start = System.nanoTime();
+            boolean matches = passwordEncoder.matches(rawPassword, passwordHash);
+            meterRegistry.timer("auth.password.check", "outcome", matches ? "match" : "mismatch")
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return matches;
+        });
+    }
+
+    /**
+     * Hashea una contraseña con el coste configurado
+     */
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> meterRegistry.timer("auth.password.encode")
+                .record(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    /**
+     * true si el hash se generó con un coste distinto del configurado (subido o bajado)
+     */
+    public boolean needsRehash(String passwordHash) {
+        int cost = costOf(passwordHash);
+        return cost > 0 && cost != strength;
+    }
+
+    // "$2a$10$..." -> 10; -1 si no parece un hash BCrypt
+    static int costOf(String passwordHash) {
+        if (passwordHash == null || passwordHash.length() < 7 || !passwordHash.startsWith("$2")
+                || passwordHash.charAt(3) != '$' || passwordHash.charAt(6) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(passwordHash.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        long enqueuedAt = System.nanoTime();
+        long deadline = enqueuedAt + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> {
+                long now = System.nanoTime();
+                meterRegistry.timer("auth.password.queue").record(now - enqueuedAt, TimeUnit.NANOSECONDS);
+                // Nadie espera ya el resultado: no gastar CPU en ella
+                if (now > deadline) throw busy("expired");
+                return work.get();
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(busy("queue_full"));
+        }
+
+        return future.orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionally(ex -> {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (cause instanceof TimeoutException) throw busy("timeout");
+                    if (cause instanceof RuntimeException re) throw re;
+                    throw new CompletionException(cause);
+                });
+    }
+
+    private PasswordHashingBusyException busy(String reason) {
+        meterRegistry.counter("auth.password.rejected", "reason", reason).increment();
+        return new PasswordHashingBusyException("Servicio de autenticación ocupado, inténtalo de nuevo",
+                Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeoutMs)));
+    }
+}
@@ -0,0 +1,126 @@
+package com.hallowedlibrary.backend.services;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Prefetch especulativo de la siguiente página de búsqueda
+ * - Opcional (books.prefetch.enabled), en un executor propio de baja prioridad
+ * - Presupuesto: como mucho N prefetch por minuto (books.prefetch.max-per-minute)
+ * - Métricas: cuántos se lanzan, fallan, se descartan por presupuesto y cuántos se llegan a usar (hits)
+ */
+@Component
+public class SearchPrefetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchPrefetcher.class);
+
+    private final AsyncTaskExecutor prefetchExecutor;
+    private final boolean enabled;
+    private final int maxPerMinute;
+
+    // Claves de búsqueda que han entrado en caché por prefetch y aún no se han pedido
+    private final Cache<String, Boolean> prefetched;
+
+    // Ventana fija de un minuto para el presupuesto
+    private long windowStart = System.currentTimeMillis();
+    private int windowCount;
+
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+
+    public SearchPrefetcher(@Qualifier("prefetchExecutor") AsyncTaskExecutor prefetchExecutor,
+                            @Value("${books.prefetch.enabled:false}") boolean enabled,
+                            @Value("${books.prefetch.max-per-minute:60}") int maxPerMinute,
+                            @Value("${books.cache.search.ttl-seconds:300}") long searchCacheTtlSeconds) {
+        this.prefetchExecutor = prefetchExecutor;
+        this.enabled = enabled;
+        this.maxPerMinute = maxPerMinute;
+        this.prefetched = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofSeconds(searchCacheTtlSeconds))
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Lanza la carga de la página indicada por key, si hay presupuesto
+     */
+    public void schedule(String key, Callable<?> loader) {
+        if (!enabled) return;
+        if (!tryAcquireBudget()) {
+            skipped.incrementAndGet();
+            return;
+        }
+
+        try {
+            prefetchExecutor.execute(() -> {
+                try {
+                    loader.call();
+                    prefetched.put(key, Boolean.TRUE);
+                    completed.incrementAndGet();
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    logger.debug("Prefetch fallido para {}: {}", key, e.getMessage());
+                }
+            });
+            issued.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            // Ya hay bastantes prefetch en cola: este se descarta
+            skipped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Avisar de un hit en la caché de búsquedas: si esa página vino de un prefetch, cuenta como acierto
+     */
+    public void recordHit(String key) {
+        if (!enabled) return;
+        if (prefetched.asMap().remove(key) != null) {
+            hits.incrementAndGet();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("enabled", enabled);
+        m.put("issued", issued.get());
+        m.put("completed", completed.get());
+        m.put("failed", failed.get());
+        m.put("skipped", skipped.get());
+        m.put("hits", hits.get());
+        long done = completed.get();
+        m.put("hitRate", done == 0 ? 0.0 : (double) hits.get() / done);
+        return m;
+    }
+
+    private synchronized boolean tryAcquireBudget() {
+        long now = System.currentTimeMillis();
+        if (now - windowStart >= 60_000) {
+            windowStart = now;
+            windowCount = 0;
+        }
+        if (windowCount >= maxPerMinute) return false;
+        windowCount++;
+        return true;
+    }
+}
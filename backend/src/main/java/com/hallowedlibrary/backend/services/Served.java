@@ -0,0 +1,16 @@
+package com.hallowedlibrary.backend.services;
+
+/**
+ * Valor servido por BooksService y si es una copia obsoleta
+ * (stale = true: Google no estaba disponible y se devuelve lo último conocido)
+ */
+public record Served<T>(T value, boolean stale) {
+
+    public static <T> Served<T> fresh(T value) {
+        return new Served<>(value, false);
+    }
+
+    public static <T> Served<T> stale(T value) {
+        return new Served<>(value, true);
+    }
+}
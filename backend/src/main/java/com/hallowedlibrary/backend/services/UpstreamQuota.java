@@ -0,0 +1,216 @@
+package com.hallowedlibrary.backend.services;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.hallowedlibrary.backend.exceptions.UpstreamRateLimitedException;
+
+/**
+ * Presupuesto de llamadas a Google Books
+ * - Token bucket: google.books.quota.per-second de ritmo y google.books.quota.burst de ráfaga
+ * - Límite diario (se reinicia a medianoche hora del Pacífico, como la cuota de Google)
+ * - Prioridades: INTERACTIVE (peticiones de usuarios) espera un poco por un token;
+ *   BACKGROUND (prefetch, refrescos) no espera y además deja una reserva para INTERACTIVE
+ * - Tras un 429 de Google se bloquea todo durante Retry-After o un backoff exponencial (lo mayor)
+ *   El backoff base (250 ms) cabe en max-wait-ms (500 ms), así el primer reintento de una petición
+ *   interactiva puede llegar a hacerse; con Retry-After de segundos no se reintenta
+ */
+@Component
+public class UpstreamQuota {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamQuota.class);
+
+    // La cuota diaria de Google se reinicia a medianoche en esta zona
+    private static final ZoneId QUOTA_ZONE = ZoneId.of("America/Los_Angeles");
+
+    public enum Priority { INTERACTIVE, BACKGROUND }
+
+    private final double perSecond;
+    private final double burst;
+    private final long dailyLimit;
+    private final long maxWaitMs;
+    private final double backgroundReserveTokens;
+    private final long backgroundReserveDaily;
+    private final long backoffBaseMs;
+    private final long backoffMaxMs;
+
+    // Estado del bucket (protegido por this)
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+    private LocalDate day = LocalDate.now(QUOTA_ZONE);
+    private long usedToday;
+    private long blockedUntilNanos;
+    private int consecutiveRateLimits;
+
+    private final AtomicLong granted = new AtomicLong();
+    private final AtomicLong rejectedInteractive = new AtomicLong();
+    private final AtomicLong rejectedBackground = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+
+    public UpstreamQuota(@Value("${google.books.quota.per-second:10}") double perSecond,
+                         @Value("${google.books.quota.burst:20}") double burst,
+                         @Value("${google.books.quota.daily-limit:1000}") long dailyLimit,
+                         @Value("${google.books.quota.max-wait-ms:500}") long maxWaitMs,
+                         @Value("${google.books.quota.background-reserve:0.5}") double backgroundReserve,
+                         @Value("${google.books.quota.backoff-base-ms:250}") long backoffBaseMs,
+                         @Value("${google.books.quota.backoff-max-ms:60000}") long backoffMaxMs) {
+        this.perSecond = Math.max(0.001, perSecond);
+        this.burst = Math.max(1, burst);
+        this.dailyLimit = dailyLimit;
+        this.maxWaitMs = Math.max(0, maxWaitMs);
+        double reserve = Math.min(1, Math.max(0, backgroundReserve));
+        this.backgroundReserveTokens = this.burst * reserve;
+        this.backgroundReserveDaily = dailyLimit <= 0 ? 0 : (long) (dailyLimit * reserve);
+        this.backoffBaseMs = Math.max(1, backoffBaseMs);
+        this.backoffMaxMs = Math.max(this.backoffBaseMs, backoffMaxMs);
+        this.tokens = this.burst;
+    }
+
+    /**
+     * Consume un token para una llamada a Google
+     * INTERACTIVE espera como mucho max-wait-ms; BACKGROUND falla enseguida si no hay margen
+     * Lanza UpstreamRateLimitedException si no hay presupuesto
+     */
+    public void acquire(Priority priority) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                refill(now);
+
+                if (dailyLimit > 0 && usedToday + reserveDaily(priority) >= dailyLimit) {
+                    reject(priority);
+                    throw new UpstreamRateLimitedException("Cuota diaria de Google Books agotada",
+                            secondsUntilReset());
+                }
+
+                if (now < blockedUntilNanos) {
+                    waitNanos = blockedUntilNanos - now;
+                } else if (tokens >= 1 + reserveTokens(priority)) {
+                    tokens -= 1;
+                    usedToday++;
+                    granted.incrementAndGet();
+                    return;
+                } else {
+                    double missing = 1 + reserveTokens(priority) - tokens;
+                    waitNanos = (long) Math.ceil(missing / perSecond * 1_000_000_000L);
+                }
+
+                if (priority == Priority.BACKGROUND || now + waitNanos > deadline) {
+                    reject(priority);
+                    throw new UpstreamRateLimitedException("Límite de peticiones a Google Books alcanzado",
+                            (long) Math.ceil(waitNanos / 1_000_000_000.0));
+                }
+            }
+
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                reject(priority);
+                throw new UpstreamRateLimitedException("Interrumpido esperando cuota de Google Books", 1);
+            }
+        }
+    }
+
+    /**
+     * Google ha respondido 429: se bloquea durante Retry-After o el backoff exponencial, lo que sea mayor
+     * Devuelve los segundos de bloqueo
+     */
+    public synchronized long onRateLimited(long retryAfterSeconds) {
+        rateLimited.incrementAndGet();
+        long backoffMs = Math.min(backoffMaxMs, backoffBaseMs << Math.min(consecutiveRateLimits, 20));
+        consecutiveRateLimits++;
+        long blockMs = Math.max(TimeUnit.SECONDS.toMillis(Math.max(0, retryAfterSeconds)), backoffMs);
+        blockedUntilNanos = Math.max(blockedUntilNanos, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockMs));
+        // Sin tokens acumulados: al desbloquear no se suelta una ráfaga
+        tokens = 0;
+        logger.warn("Google Books ha respondido 429: pausa de {} ms", blockMs);
+        return (long) Math.ceil(blockMs / 1000.0);
+    }
+
+    /**
+     * true si la pausa en curso tras un 429 cabe en la espera máxima de INTERACTIVE (max-wait-ms):
+     * solo entonces tiene sentido reintentar, si no acquire fallaría de todas formas
+     */
+    public synchronized boolean isPauseWithinMaxWait() {
+        return blockedUntilNanos - System.nanoTime() <= TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+    }
+
+    // Llamada correcta: se reinicia el backoff
+    public synchronized void onSuccess() {
+        consecutiveRateLimits = 0;
+    }
+
+    /**
+     * Llamadas que quedan hoy (-1 si no hay límite diario)
+     */
+    public synchronized long getRemainingDaily() {
+        refill(System.nanoTime());
+        return dailyLimit <= 0 ? -1 : Math.max(0, dailyLimit - usedToday);
+    }
+
+    public synchronized double getAvailableTokens() {
+        refill(System.nanoTime());
+        return tokens;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("availableTokens", Math.floor(getAvailableTokens()));
+        m.put("dailyLimit", dailyLimit);
+        m.put("remainingToday", getRemainingDaily());
+        m.put("granted", granted.get());
+        m.put("rejectedInteractive", rejectedInteractive.get());
+        m.put("rejectedBackground", rejectedBackground.get());
+        m.put("upstream429", rateLimited.get());
+        synchronized (this) {
+            m.put("blockedForMs", Math.max(0, TimeUnit.NANOSECONDS.toMillis(blockedUntilNanos - System.nanoTime())));
+        }
+        return m;
+    }
+
+    private void refill(long now) {
+        double elapsedSeconds = (now - lastRefillNanos) / 1_000_000_000.0;
+        if (elapsedSeconds > 0) {
+            tokens = Math.min(burst, tokens + elapsedSeconds * perSecond);
+            lastRefillNanos = now;
+        }
+        LocalDate today = LocalDate.now(QUOTA_ZONE);
+        if (!today.equals(day)) {
+            day = today;
+            usedToday = 0;
+        }
+    }
+
+    private double reserveTokens(Priority priority) {
+        return priority == Priority.BACKGROUND ? backgroundReserveTokens : 0;
+    }
+
+    private long reserveDaily(Priority priority) {
+        return priority == Priority.BACKGROUND ? backgroundReserveDaily : 0;
+    }
+
+    private void reject(Priority priority) {
+        if (priority == Priority.BACKGROUND) rejectedBackground.incrementAndGet();
+        else rejectedInteractive.incrementAndGet();
+    }
+
+    private long secondsUntilReset() {
+        ZonedDateTime now = ZonedDateTime.now(QUOTA_ZONE);
+        ZonedDateTime reset = now.toLocalDate().plusDays(1).atStartOfDay(QUOTA_ZONE);
+        return Duration.between(now, reset).getSeconds();
+    }
+}
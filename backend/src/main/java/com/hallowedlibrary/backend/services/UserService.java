@@ -1,41 +1,74 @@
 package com.hallowedlibrary.backend.services;
 
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.hallowedlibrary.backend.dto.UserCreateDto;
 import com.hallowedlibrary.backend.dto.UserResponseDto;
 import com.hallowedlibrary.backend.entities.User;
 import com.hallowedlibrary.backend.exceptions.UserAlreadyExistsException;
 import com.hallowedlibrary.backend.repositories.UserRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * UserService: encapsula la lógica relacionada con usuarios
  * - creación (signup)
  * - búsquedas
  * - validación de contraseña
  * - transformación a DTO de respuesta
+ * - caché acotada de usuarios por id para el filtro JWT (evita ir a BBDD en cada petición)
+ * - BCrypt fuera de los hilos de Tomcat (PasswordHasher), por eso signup y login devuelven CompletableFuture
+ * - rehash transparente en el login si el coste de BCrypt configurado ha cambiado
+ * - métricas: lectura en BBDD en un miss (users.lookup); las de BCrypt están en PasswordHasher
  */
 @Service
 public class UserService {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final MeterRegistry meterRegistry;
 
-    // Inyectamos repositorio y encoder (configurado en PasswordConfig)
+    // Usuarios autenticados recientes; se invalida al cambiar el perfil y caduca por TTL
+    private final Cache<Long, User> userCache;
+
+    // Inyectamos repositorio y hasher (encoder configurado en PasswordConfig)
     public UserService(UserRepository userRepository,
-                       PasswordEncoder passwordEncoder) {
+                       PasswordHasher passwordHasher,
+                       MeterRegistry meterRegistry,
+                       @Value("${users.cache.max-size:10000}") long userCacheMaxSize,
+                       @Value("${users.cache.ttl-seconds:300}") long userCacheTtlSeconds) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
+        this.meterRegistry = meterRegistry;
+        this.userCache = Caffeine.newBuilder()
+                .maximumSize(userCacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(userCacheTtlSeconds))
+                .recordStats()
+                .build();
     }
 
     /**
      * Crea un usuario nuevo a partir de un UserCreateDto
-     * Lanza UserAlreadyExistsException si username/email ya están en uso
+     * El futuro falla con UserAlreadyExistsException si username/email ya están en uso (el email sin distinguir mayúsculas)
+     * Las validaciones se hacen en el hilo llamante; el hash (y el INSERT, que es corto) en passwordExecutor
+     * El futuro falla con PasswordHashingBusyException si no hay capacidad para hashear
      */
-    public User createUser(UserCreateDto dto) {
+    public CompletableFuture<User> createUser(UserCreateDto dto) {
         // Validaciones de campos
         if (dto.getUsername() == null || dto.getUsername().trim().isEmpty()) {
             throw new IllegalArgumentException("username requerido");
@@ -50,24 +83,53 @@ public class UserService {
             throw new IllegalArgumentException("Las contraseñas no coinciden");
         }
 
-        // Comprobar duplicados
-        if (userRepository.existsByUsername(dto.getUsername())) {
-            throw new UserAlreadyExistsException("El username ya está en uso");
-        }
-        if (userRepository.existsByEmail(dto.getEmail().toLowerCase())) {
-            throw new UserAlreadyExistsException("El email ya está en uso");
-        }
+        // Un solo INSERT: los duplicados los detectan los índices únicos (sin carreras entre comprobar y guardar)
+        return passwordHasher.encode(dto.getPassword()).thenApply(hash -> {
+            User user = User.builder()
+                    .username(dto.getUsername().trim())
+                    .name(dto.getName().trim())
+                    .email(dto.getEmail().trim().toLowerCase(Locale.ROOT))
+                    .passwordHash(hash)
+                    .build();
+            try {
+                return userRepository.save(user);
+            } catch (DataIntegrityViolationException e) {
+                String field = duplicatedField(e);
+                if ("username".equals(field)) throw new UserAlreadyExistsException("El username ya está en uso");
+                if ("email".equals(field)) throw new UserAlreadyExistsException("El email ya está en uso");
+                throw e;
+            }
+        });
+    }
 
-        // Construir User y hashear la contraseña
-        User user = User.builder()
-                .username(dto.getUsername().trim())
-                .name(dto.getName().trim())
-                .email(dto.getEmail().trim().toLowerCase())
-                .passwordHash(passwordEncoder.encode(dto.getPassword()))
-                .build();
+    /**
+     * Qué campo ha violado una restricción única al insertar (username / email), o null
+     * - Por nombre de la restricción (users_username_key, users_email_key, users_email_lower_key)
+     * - Si no hay nombre reconocible (restricciones antiguas de Hibernate), por la columna del detalle de Postgres:
+     *   'Key (lower((email)::text))=(...) already exists.' (solo se mira lo de antes de ")=(", no el valor)
+     */
+    static String duplicatedField(DataIntegrityViolationException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException cve && cve.getConstraintName() != null) {
+                String field = fieldIn(cve.getConstraintName());
+                if (field != null) return field;
+            }
+            // 23505 = unique_violation en Postgres
+            if (t instanceof SQLException sql && "23505".equals(sql.getSQLState()) && sql.getMessage() != null) {
+                String message = sql.getMessage();
+                int key = message.indexOf("Key (");
+                int end = key < 0 ? -1 : message.indexOf(")=(", key);
+                if (end > 0) return fieldIn(message.substring(key, end));
+            }
+        }
+        return null;
+    }
 
-        // Guardar en DB
-        return userRepository.save(user);
+    private static String fieldIn(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        if (lower.contains("username")) return "username";
+        if (lower.contains("email")) return "email";
+        return null;
     }
 
     /**
@@ -76,18 +138,39 @@ public class UserService {
     public Optional<User> findByUsernameOrEmail(String identifier) {
         if (identifier == null) return Optional.empty();
         if (identifier.contains("@")) {
-            return userRepository.findByEmail(identifier.toLowerCase());
+            return userRepository.findByEmail(identifier.trim());
         } else {
-            return userRepository.findByUsername(identifier);
+            return userRepository.findByUsername(identifier.trim());
         }
     }
 
     /**
-     * Comprobar una contraseña (raw) contra el passwordHash (BCrypt)
+     * Comprobar una contraseña (raw) contra el passwordHash (BCrypt), en passwordExecutor
+     * Si coincide y el hash tiene un coste distinto del configurado, se rehashea en segundo plano
+     * El futuro falla con PasswordHashingBusyException si no hay capacidad para verificar
      */
-    public boolean checkPassword(User user, String rawPassword) {
-        if (user == null || rawPassword == null) return false;
-        return passwordEncoder.matches(rawPassword, user.getPasswordHash());
+    public CompletableFuture<Boolean> checkPassword(User user, String rawPassword) {
+        if (user == null || rawPassword == null) return CompletableFuture.completedFuture(false);
+        return passwordHasher.matches(rawPassword, user.getPasswordHash()).thenApply(matches -> {
+            if (matches && passwordHasher.needsRehash(user.getPasswordHash())) {
+                rehash(user, rawPassword);
+            }
+            return matches;
+        });
+    }
+
+    // Best effort: si no hay capacidad o alguien cambió el hash entretanto, se reintentará en otro login
+    private void rehash(User user, String rawPassword) {
+        String oldHash = user.getPasswordHash();
+        passwordHasher.encode(rawPassword).thenAccept(newHash -> {
+            if (userRepository.updatePasswordHash(user.getId(), oldHash, newHash) > 0) {
+                user.setPasswordHash(newHash);
+                evictCachedUser(user.getId());
+            }
+        }).exceptionally(ex -> {
+            logger.debug("Rehash de la contraseña del usuario {} aplazado: {}", user.getId(), ex.getMessage());
+            return null;
+        });
     }
 
     /**
@@ -97,6 +180,40 @@ public class UserService {
         return userRepository.findById(id);
     }
 
+    /**
+     * Obtener un User por id pasando por la caché (solo va a BBDD en un miss)
+     * Lo usa JwtFilter para poner el principal en cada petición autenticada
+     */
+    public Optional<User> getCachedById(Long id) {
+        if (id == null) return Optional.empty();
+        User cached = userCache.getIfPresent(id);
+        if (cached != null) return Optional.of(cached);
+
+        Optional<User> user = meterRegistry.timer("users.lookup", "source", "db")
+                .record(() -> userRepository.findById(id));
+        user.ifPresent(u -> userCache.put(id, u));
+        return user;
+    }
+
+    // Para exponer sus estadísticas como métricas (MetricsConfig)
+    public Cache<Long, User> cache() {
+        return userCache;
+    }
+
+    /**
+     * Guarda en la caché la versión recién leída/escrita del usuario (p.ej. tras login)
+     */
+    public void cacheUser(User user) {
+        if (user != null && user.getId() != null) userCache.put(user.getId(), user);
+    }
+
+    /**
+     * Invalidar la caché de un usuario; llamar siempre que cambie su perfil
+     */
+    public void evictCachedUser(Long id) {
+        if (id != null) userCache.invalidate(id);
+    }
+
     /**
      * Convierte entidad User a UserResponseDto para devolver al frontend
      */
@@ -0,0 +1,91 @@
+package com.hallowedlibrary.backend.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import com.sun.net.httpserver.HttpServer;
+
+class GoogleBooksClientConfigTest {
+
+	private static final byte[] BODY = "{\"items\": []}".getBytes(StandardCharsets.UTF_8);
+
+	private HttpServer server;
+	private final CountDownLatch release = new CountDownLatch(1);
+	private RestTemplate restTemplate;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/ok", exchange -> {
+			exchange.sendResponseHeaders(200, BODY.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(BODY);
+			}
+		});
+		// Cabeceras y parte del body enseguida; el resto no llega hasta que acaba el test
+		server.createContext("/stall", exchange -> {
+			exchange.sendResponseHeaders(200, BODY.length);
+			OutputStream out = exchange.getResponseBody();
+			out.write(BODY, 0, 4);
+			out.flush();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+				out.write(BODY, 4, BODY.length - 4);
+				out.close();
+			} catch (Exception ignored) {
+				exchange.close();
+			}
+		});
+		server.start();
+
+		// 300 ms de lectura, pool de 2 conexiones
+		restTemplate = new GoogleBooksClientConfig().googleBooksRestTemplate(new RestTemplateBuilder(),
+				1000, 300, 2, 2, 30000);
+	}
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		server.stop(0);
+	}
+
+	@Test
+	void readsWholeBodyThroughPool() {
+		for (int i = 0; i < 5; i++) {
+			assertThat(get("/ok")).isEqualTo(BODY);
+		}
+	}
+
+	@Test
+	void readTimeoutBoundsReadingTheBody() {
+		long start = System.nanoTime();
+
+		assertThatThrownBy(() -> get("/stall"))
+				.isInstanceOf(ResourceAccessException.class)
+				.hasRootCauseInstanceOf(SocketTimeoutException.class);
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(3000);
+	}
+
+	private byte[] get(String path) {
+		URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+		return restTemplate.execute(uri, HttpMethod.GET, null,
+				response -> StreamUtils.copyToByteArray(response.getBody()));
+	}
+}
@@ -0,0 +1,56 @@
+package com.hallowedlibrary.backend.security;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JwtUtil: generar token y validarlo
+ * - validateCached: mismo token, sale de la caché de tokens verificados
+ * - validateUncached: JwtUtil sin caché (max-size 0), verificación HMAC completa cada vez
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+	private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark";
+
+	private JwtUtil cached;
+	private JwtUtil uncached;
+	private String token;
+
+	@Setup
+	public void setup() {
+		cached = new JwtUtil(SECRET, 10_000);
+		uncached = new JwtUtil(SECRET, 0);
+		token = cached.generateToken(42L);
+	}
+
+	@Benchmark
+	public String generateToken() {
+		return cached.generateToken(42L);
+	}
+
+	@Benchmark
+	public Long validateCached() {
+		return cached.validateTokenAndGetUserId(token);
+	}
+
+	@Benchmark
+	public Long validateUncached() {
+		return uncached.validateTokenAndGetUserId(token);
+	}
+}
@@ -0,0 +1,52 @@
+package com.hallowedlibrary.backend.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hallowedlibrary.backend.dto.BookDto;
+
+/**
+ * Serialización con Jackson de la respuesta de /api/books/search (List<BookDto>)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookDtoSerializationBenchmark {
+
+	@Param({ "10", "40" })
+	int pageSize;
+
+	private ObjectMapper mapper;
+	private List<BookDto> books;
+
+	@Setup
+	public void setup() throws IOException {
+		mapper = new ObjectMapper();
+		byte[] page = GoogleBooksParserBenchmark.expand(mapper,
+				GoogleBooksParserBenchmark.fixture("search.json"), pageSize);
+		books = new GoogleBooksParser(mapper).parseVolumes(new ByteArrayInputStream(page));
+	}
+
+	@Benchmark
+	public byte[] serializeSearchPage() throws IOException {
+		return mapper.writeValueAsBytes(books);
+	}
+}
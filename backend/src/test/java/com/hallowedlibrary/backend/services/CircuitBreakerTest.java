@@ -0,0 +1,78 @@
+package com.hallowedlibrary.backend.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import com.hallowedlibrary.backend.exceptions.UpstreamUnavailableException;
+
+class CircuitBreakerTest {
+
+	@Test
+	void opensAfterConsecutiveFailuresAndFailsFast() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 2, 60_000);
+
+		for (int i = 0; i < 2; i++) {
+			assertThatThrownBy(() -> breaker.call(() -> { throw new IOException("down"); }, e -> true))
+					.isInstanceOf(IOException.class);
+		}
+
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThatThrownBy(() -> breaker.call(() -> "ok", e -> true))
+				.isInstanceOf(UpstreamUnavailableException.class);
+	}
+
+	@Test
+	void halfOpenTrialClosesTheCircuit() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker("test", 1, 5);
+		assertThatThrownBy(() -> breaker.call(() -> { throw new IOException("down"); }, e -> true))
+				.isInstanceOf(IOException.class);
+
+		Thread.sleep(20);
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+		assertThat(breaker.call(() -> "ok", e -> true)).isEqualTo("ok");
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void nonFailuresDoNotOpen() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 1, 60_000);
+
+		assertThatThrownBy(() -> breaker.call(() -> { throw new IllegalStateException("404"); }, e -> false))
+				.isInstanceOf(IllegalStateException.class);
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void errorDuringTrialReleasesIt() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker("test", 1, 5);
+		assertThatThrownBy(() -> breaker.call(() -> { throw new IOException("down"); }, e -> true))
+				.isInstanceOf(IOException.class);
+
+		Thread.sleep(20);
+		assertThatThrownBy(() -> breaker.call(() -> { throw new OutOfMemoryError("boom"); }, e -> true))
+				.isInstanceOf(OutOfMemoryError.class);
+		assertThat(breaker.call(() -> "ok", e -> true)).isEqualTo("ok");
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void foregroundCallsNeverTakeTheTrial() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker("test", 1, 5);
+		assertThatThrownBy(() -> breaker.call(() -> { throw new IOException("down"); }, e -> true))
+				.isInstanceOf(IOException.class);
+
+		Thread.sleep(20);
+		assertThatThrownBy(breaker::rejectIfNotClosed).isInstanceOf(UpstreamUnavailableException.class);
+		assertThatThrownBy(() -> breaker.call(() -> "ok", e -> true, false))
+				.isInstanceOf(UpstreamUnavailableException.class);
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+		assertThat(breaker.call(() -> "ok", e -> true, true)).isEqualTo("ok");
+		breaker.rejectIfNotClosed();
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+}
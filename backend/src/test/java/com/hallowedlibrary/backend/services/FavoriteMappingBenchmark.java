@@ -0,0 +1,61 @@
+package com.hallowedlibrary.backend.services;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hallowedlibrary.backend.dto.FavoriteDto;
+import com.hallowedlibrary.backend.repositories.FavoriteView;
+
+/**
+ * Mapeo FavoriteView -> FavoriteDto
+ * - toDto: autores ya en lista (columna text[])
+ * - legacySplit: el formato anterior, autores 'a|b|c' partidos con split("\\|"), como referencia
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FavoriteMappingBenchmark {
+
+	private FavoriteView view;
+	private String authorsText;
+
+	@Setup
+	public void setup() {
+		List<String> authors = List.of("Ursula K. Le Guin", "Charlie Jane Anders", "N. K. Jemisin");
+		authorsText = String.join("|", authors);
+		view = new FavoriteView() {
+			public Long getId() { return 42L; }
+			public String getVolumeId() { return "zyTCAlFPjgYC"; }
+			public String getTitle() { return "The Left Hand of Darkness"; }
+			public String getMiniature() { return "http://books.google.com/books/content?id=zyTCAlFPjgYC"; }
+			public List<String> getAuthors() { return authors; }
+			public Instant getCreatedAt() { return Instant.EPOCH; }
+		};
+	}
+
+	@Benchmark
+	public FavoriteDto toDto() {
+		return FavoriteService.toDto(view);
+	}
+
+	@Benchmark
+	public FavoriteDto legacySplit() {
+		return new FavoriteDto(view.getVolumeId(), view.getTitle(), view.getMiniature(),
+				List.of(authorsText.split("\\|")));
+	}
+}
@@ -0,0 +1,80 @@
+package com.hallowedlibrary.backend.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.net.URI;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hallowedlibrary.backend.dto.BookDto;
+import com.hallowedlibrary.backend.exceptions.UpstreamRateLimitedException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class GoogleBooksClientTest {
+
+	private static final String PAGE = """
+			{"items": [{"id": "abc", "volumeInfo": {"title": "Libro"}}]}
+			""";
+
+	private MockRestServiceServer server;
+	private GoogleBooksClient client;
+	private URI uri;
+
+	@BeforeEach
+	void setUp() {
+		RestTemplate restTemplate = new RestTemplate();
+		server = MockRestServiceServer.bindTo(restTemplate).build();
+		// Valores por defecto de UpstreamQuota: max-wait-ms 500, backoff-base-ms 250
+		UpstreamQuota quota = new UpstreamQuota(10, 20, 1000, 500, 0.5, 250, 60000);
+		client = new GoogleBooksClient(restTemplate, new GoogleBooksParser(new ObjectMapper()), quota,
+				new SimpleMeterRegistry(), "http://books.test/books/v1", "", 0, 1);
+		uri = client.searchUri("tema", 0, 20);
+	}
+
+	@Test
+	void interactiveRequestIsRetriedWhenPauseFitsInMaxWait() {
+		server.expect(ExpectedCount.once(), requestTo(uri)).andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS));
+		server.expect(ExpectedCount.once(), requestTo(uri)).andRespond(withSuccess(PAGE, MediaType.APPLICATION_JSON));
+
+		List<BookDto> books = client.fetchVolumes(uri, UpstreamQuota.Priority.INTERACTIVE);
+
+		assertThat(books).extracting(BookDto::id).containsExactly("abc");
+		server.verify();
+	}
+
+	@Test
+	void retryAfterLongerThanMaxWaitFailsWithoutRetrying() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(HttpHeaders.RETRY_AFTER, "5");
+		server.expect(ExpectedCount.once(), requestTo(uri))
+				.andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS).headers(headers));
+
+		assertThatThrownBy(() -> client.fetchVolumes(uri, UpstreamQuota.Priority.INTERACTIVE))
+				.isInstanceOfSatisfying(UpstreamRateLimitedException.class,
+						e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(5));
+		server.verify();
+	}
+
+	@Test
+	void backgroundRequestIsNotRetried() {
+		server.expect(ExpectedCount.once(), requestTo(uri)).andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS));
+
+		assertThatThrownBy(() -> client.fetchVolumes(uri, UpstreamQuota.Priority.BACKGROUND))
+				.isInstanceOf(UpstreamRateLimitedException.class);
+		server.verify();
+	}
+}
@@ -0,0 +1,84 @@
+package com.hallowedlibrary.backend.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hallowedlibrary.backend.dto.BookDto;
+
+/**
+ * Parseo de respuestas de Google Books (fixtures de src/test/resources/google-books)
+ * La página de búsqueda se amplía a pageSize volúmenes repitiendo los del fixture
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GoogleBooksParserBenchmark {
+
+	@Param({ "10", "40" })
+	int pageSize;
+
+	private GoogleBooksParser parser;
+	private byte[] searchPage;
+	private byte[] volume;
+
+	@Setup
+	public void setup() throws IOException {
+		ObjectMapper mapper = new ObjectMapper();
+		parser = new GoogleBooksParser(mapper);
+		searchPage = expand(mapper, fixture("search.json"), pageSize);
+		volume = fixture("volume.json");
+	}
+
+	@Benchmark
+	public List<BookDto> parseSearchPage() throws IOException {
+		return parser.parseVolumes(new ByteArrayInputStream(searchPage));
+	}
+
+	@Benchmark
+	public BookDto parseVolume() throws IOException {
+		return parser.parseVolume(new ByteArrayInputStream(volume));
+	}
+
+	static byte[] fixture(String name) throws IOException {
+		try (InputStream in = GoogleBooksParserBenchmark.class.getResourceAsStream("/google-books/" + name)) {
+			if (in == null) throw new IOException("Fixture no encontrado: " + name);
+			return in.readAllBytes();
+		}
+	}
+
+	// Repite los items del fixture hasta tener size volúmenes
+	static byte[] expand(ObjectMapper mapper, byte[] page, int size) throws IOException {
+		ObjectNode root = (ObjectNode) mapper.readTree(page);
+		ArrayNode items = (ArrayNode) root.get("items");
+		List<JsonNode> originals = new ArrayList<>();
+		items.forEach(originals::add);
+		items.removeAll();
+		for (int i = 0; i < size; i++) {
+			items.add(originals.get(i % originals.size()).deepCopy());
+		}
+		return mapper.writeValueAsBytes(root);
+	}
+}
@@ -0,0 +1,71 @@
+package com.hallowedlibrary.backend.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hallowedlibrary.backend.dto.BookDto;
+
+class GoogleBooksParserTest {
+
+	private final GoogleBooksParser parser = new GoogleBooksParser(new ObjectMapper());
+
+	@Test
+	void parsesSearchPageAndSkipsUnusedSections() throws Exception {
+		List<BookDto> books;
+		try (InputStream in = fixture("search.json")) {
+			books = parser.parseVolumes(in);
+		}
+
+		assertThat(books).hasSize(2);
+
+		BookDto first = books.get(0);
+		assertThat(first.id()).isEqualTo("zyTCAlFPjgYC");
+		assertThat(first.title()).isEqualTo("The Google Story");
+		assertThat(first.authors()).containsExactly("David A. Vise", "Mark Malseed");
+		assertThat(first.publisher()).isEqualTo("Random House Digital, Inc.");
+		assertThat(first.publishedDate()).isEqualTo("2005-11-15");
+		assertThat(first.categories()).containsExactly("Browsers (Computer programs)", "Information Technology");
+		assertThat(first.miniature()).endsWith("zoom=1");
+		assertThat(first.isbn13()).isEqualTo("9780553804577");
+		assertThat(first.isbn10()).isEqualTo("055380457X");
+
+		BookDto second = books.get(1);
+		assertThat(second.id()).isEqualTo("nOcT1Ftk2xYC");
+		assertThat(second.categories()).isEmpty();
+		assertThat(second.miniature()).endsWith("zoom=5");
+		assertThat(second.isbn13()).isNull();
+		assertThat(second.isbn10()).isNull();
+	}
+
+	@Test
+	void parsesSingleVolume() throws Exception {
+		BookDto book;
+		try (InputStream in = fixture("volume.json")) {
+			book = parser.parseVolume(in);
+		}
+
+		assertThat(book.id()).isEqualTo("zyTCAlFPjgYC");
+		assertThat(book.authors()).containsExactly("David A. Vise");
+		assertThat(book.publisher()).isNull();
+		assertThat(book.publishedDate()).isNull();
+		assertThat(book.isbn13()).isEqualTo("9780553804577");
+	}
+
+	@Test
+	void searchWithoutItemsIsEmpty() throws Exception {
+		String json = "{\"kind\":\"books#volumes\",\"totalItems\":0}";
+		List<BookDto> books = parser.parseVolumes(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+		assertThat(books).isEmpty();
+	}
+
+	private InputStream fixture(String name) {
+		return getClass().getResourceAsStream("/google-books/" + name);
+	}
+}
@@ -0,0 +1,33 @@
+package com.hallowedlibrary.backend.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class IsbnIndexTest {
+
+	@Test
+	void normalizesIsbn13WithHyphens() {
+		assertThat(IsbnIndex.normalize("978-0-553-80457-7")).isEqualTo("9780553804577");
+	}
+
+	@Test
+	void convertsIsbn10ToIsbn13() {
+		assertThat(IsbnIndex.normalize("0-553-80457-X")).isEqualTo("9780553804577");
+		assertThat(IsbnIndex.normalize("0306406152")).isEqualTo("9780306406157");
+	}
+
+	@Test
+	void convertsIsbn13BackToIsbn10() {
+		assertThat(IsbnIndex.toIsbn10("9780553804577")).isEqualTo("055380457X");
+		assertThat(IsbnIndex.toIsbn10("9780306406157")).isEqualTo("0306406152");
+		assertThat(IsbnIndex.toIsbn10("9791032305690")).isNull();
+	}
+
+	@Test
+	void rejectsNonIsbn() {
+		assertThat(IsbnIndex.normalize(null)).isNull();
+		assertThat(IsbnIndex.normalize("UOM:39015004066787")).isNull();
+		assertThat(IsbnIndex.normalize("12345")).isNull();
+	}
+}
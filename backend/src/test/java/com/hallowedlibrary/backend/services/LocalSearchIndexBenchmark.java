@@ -0,0 +1,102 @@
+package com.hallowedlibrary.backend.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hallowedlibrary.backend.dto.BookDto;
+
+/**
+ * Índice de búsqueda local sobre un catálogo sintético de docs volúmenes
+ * - indexAll: throughput de indexación (ops = volúmenes indexados por segundo)
+ * - query*: latencia de una búsqueda de 20 resultados con términos frecuentes, raros y con operadores de campo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalSearchIndexBenchmark {
+
+	private static final int BATCH = 10_000;
+
+	@Param({ "10000", "100000" })
+	int docs;
+
+	private LocalSearchIndex index;
+	private List<BookDto> batch;
+
+	@Setup
+	public void setup() {
+		index = new LocalSearchIndex(null, null, true, docs, 200);
+		index.indexAll(catalog(docs, 42));
+		batch = catalog(BATCH, 7);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	@OperationsPerInvocation(BATCH)
+	public LocalSearchIndex indexAll() {
+		LocalSearchIndex fresh = new LocalSearchIndex(null, null, true, BATCH, 200);
+		fresh.indexAll(batch);
+		return fresh;
+	}
+
+	@Benchmark
+	public LocalSearchIndex.Result queryCommonTerms() {
+		return index.search("historia guerra", 0, 20);
+	}
+
+	@Benchmark
+	public LocalSearchIndex.Result queryRareTerm() {
+		return index.search("autor17", 0, 20);
+	}
+
+	@Benchmark
+	public LocalSearchIndex.Result queryFieldOperators() {
+		return index.search("intitle:dragon+subject:fantasy", 0, 20);
+	}
+
+	@Benchmark
+	public LocalSearchIndex.Result queryDeepPage() {
+		return index.search("historia", 200, 20);
+	}
+
+	// Vocabulario con frecuencias muy distintas para que haya postings largos y cortos
+	static List<BookDto> catalog(int count, long seed) {
+		String[] words = { "historia", "guerra", "dragon", "amor", "ciudad", "sombra", "mar", "rey", "noche",
+				"viaje", "secreto", "jardin", "fuego", "memoria", "imperio", "isla", "reina", "bosque", "luz", "tiempo" };
+		String[] categories = { "Fiction", "History", "Fantasy", "Science", "Poetry", "Biography" };
+		Random random = new Random(seed);
+		List<BookDto> books = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			StringBuilder title = new StringBuilder();
+			for (int w = 0; w < 3; w++) title.append(words[(int) Math.abs(random.nextGaussian() * 6) % words.length]).append(' ');
+			StringBuilder description = new StringBuilder();
+			for (int w = 0; w < 80; w++) {
+				description.append(random.nextInt(4) == 0 ? words[random.nextInt(words.length)] : "palabra" + random.nextInt(5000))
+						.append(' ');
+			}
+			books.add(new BookDto("vol-" + seed + "-" + i, title.toString().trim(),
+					List.of("Autor" + random.nextInt(2000), "Autor" + random.nextInt(2000)), null, null,
+					description.toString(), List.of(categories[random.nextInt(categories.length)]), null, null, null));
+		}
+		return books;
+	}
+}
@@ -0,0 +1,118 @@
+package com.hallowedlibrary.backend.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.hallowedlibrary.backend.dto.BookDto;
+
+class LocalSearchIndexTest {
+
+	@Test
+	void matchesAllTermsAndRanksTitleAboveDescription() {
+		LocalSearchIndex index = index(100);
+		index.index(book("a", "Cien años de soledad", "Gabriel García Márquez", "Fiction", "Macondo"));
+		index.index(book("b", "Vivir para contarla", "Gabriel García Márquez", "Biography", "Cien años después"));
+		index.index(book("c", "Cien sonetos de amor", "Pablo Neruda", "Poetry", "Poemas"));
+
+		LocalSearchIndex.Result result = index.search("cien AÑOS", 0, 10);
+
+		assertThat(result.supported()).isTrue();
+		assertThat(result.totalMatches()).isEqualTo(2);
+		assertThat(result.books()).extracting(BookDto::id).containsExactly("a", "b");
+	}
+
+	@Test
+	void restrictsGoogleStyleFieldOperators() {
+		LocalSearchIndex index = index(100);
+		index.index(book("a", "Neruda", "Someone Else", "Criticism", ""));
+		index.index(book("b", "Veinte poemas", "Pablo Neruda", "Poetry", ""));
+
+		assertThat(index.search("inauthor:neruda", 0, 10).books()).extracting(BookDto::id).containsExactly("b");
+		assertThat(index.search("intitle:veinte+inauthor:pablo", 0, 10).books()).extracting(BookDto::id)
+				.containsExactly("b");
+		assertThat(index.search("subject:poetry", 0, 10).totalMatches()).isEqualTo(1);
+		assertThat(index.search("isbn:9780553804577", 0, 10).supported()).isFalse();
+	}
+
+	@Test
+	void keepsTheFieldOperatorForPlusJoinedTerms() {
+		LocalSearchIndex index = index(100);
+		index.index(book("a", "Harry", "Someone", "Fiction", "Potter"));
+		index.index(book("b", "Harry Potter", "J. K. Rowling", "Fiction", ""));
+
+		assertThat(index.search("intitle:harry+potter", 0, 10).books()).extracting(BookDto::id).containsExactly("b");
+		assertThat(index.search("intitle:harry potter", 0, 10).totalMatches()).isEqualTo(2);
+	}
+
+	@Test
+	void scoresOnlyTheQueriedFields() {
+		LocalSearchIndex index = index(100);
+		index.index(book("a", "Residencia en la tierra", "Pablo Neruda", "Poetry", ""));
+		index.index(book("b", "Canto general", "Pablo Neruda", "Poetry", "Neruda, Neruda y Neruda"));
+
+		// La descripción de b no cuenta para inauthor: empate, gana el primero indexado
+		assertThat(index.search("inauthor:neruda", 0, 10).books()).extracting(BookDto::id).containsExactly("a", "b");
+		assertThat(index.search("neruda", 0, 10).books()).extracting(BookDto::id).containsExactly("b", "a");
+	}
+
+	@Test
+	void servesFullVolumesFromTheCatalog() {
+		BookDto stored = book("a", "Dune", "Frank Herbert", "Fiction", "Arrakis");
+		BookCatalogService catalog = new BookCatalogService(null, null, null, true, 168) {
+			@Override
+			public Map<String, BookDto> findAll(Collection<String> volumeIds) {
+				return volumeIds.contains("a") ? Map.of("a", stored) : Map.of();
+			}
+		};
+		LocalSearchIndex index = new LocalSearchIndex(catalog, null, true, 100, 200);
+		index.index(stored);
+		index.index(book("b", "Dune Messiah", "Frank Herbert", "Fiction", "Paul"));
+
+		List<BookDto> books = index.search("dune", 0, 10).books();
+
+		assertThat(books.get(0)).isEqualTo(stored);
+		// Aún no está en el catálogo: solo los campos de listado
+		assertThat(books.get(1).title()).isEqualTo("Dune Messiah");
+		assertThat(books.get(1).authors()).containsExactly("Frank Herbert");
+		assertThat(books.get(1).description()).isNull();
+	}
+
+	@Test
+	void reindexesChangedVolumesAndForgetsTheOldest() {
+		LocalSearchIndex index = index(2);
+		index.index(book("a", "Dune", "Frank Herbert", "Fiction", ""));
+		index.index(book("a", "Dune Messiah", "Frank Herbert", "Fiction", ""));
+		index.index(book("b", "Hyperion", "Dan Simmons", "Fiction", ""));
+		index.index(book("c", "Foundation", "Isaac Asimov", "Fiction", ""));
+
+		assertThat(index.size()).isEqualTo(2);
+		assertThat(index.search("messiah", 0, 10).totalMatches()).isZero();
+		assertThat(index.search("fiction", 0, 10).books()).extracting(BookDto::id).containsExactlyInAnyOrder("b", "c");
+	}
+
+	@Test
+	void paginatesByRelevance() {
+		LocalSearchIndex index = index(100);
+		for (int i = 0; i < 5; i++) {
+			index.index(book("v" + i, "Historia " + i, "Autor", "History", "historia ".repeat(i)));
+		}
+
+		LocalSearchIndex.Result page = index.search("historia", 2, 2);
+
+		assertThat(page.totalMatches()).isEqualTo(5);
+		assertThat(page.books()).extracting(BookDto::id).containsExactly("v2", "v1");
+	}
+
+	private static LocalSearchIndex index(int maxDocs) {
+		return new LocalSearchIndex(null, null, true, maxDocs, 200);
+	}
+
+	private static BookDto book(String id, String title, String author, String category, String description) {
+		return new BookDto(id, title, List.of(author), null, null, description, List.of(category), null, null, null);
+	}
+}
@@ -0,0 +1,75 @@
+package com.hallowedlibrary.backend.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.hallowedlibrary.backend.exceptions.PasswordHashingBusyException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PasswordHasherTest {
+
+	@Test
+	void encodesAndMatchesOffTheCallerThread() throws Exception {
+		PasswordHasher hasher = hasher(executor(2, 4), 4);
+
+		String hash = hasher.encode("secret").get();
+
+		assertThat(hasher.matches("secret", hash).get()).isTrue();
+		assertThat(hasher.matches("wrong", hash).get()).isFalse();
+		assertThat(hasher.needsRehash(hash)).isFalse();
+	}
+
+	@Test
+	void flagsHashesWithADifferentCost() {
+		PasswordHasher hasher = hasher(executor(1, 1), 12);
+
+		assertThat(PasswordHasher.costOf("$2a$10$abcdefghijklmnopqrstuv")).isEqualTo(10);
+		assertThat(PasswordHasher.costOf("plain")).isEqualTo(-1);
+		assertThat(hasher.needsRehash(new BCryptPasswordEncoder(4).encode("secret"))).isTrue();
+		assertThat(hasher.needsRehash("plain")).isFalse();
+	}
+
+	@Test
+	void rejectsImmediatelyWhenTheQueueIsFull() throws Exception {
+		ThreadPoolTaskExecutor executor = executor(1, 0);
+		PasswordHasher hasher = hasher(executor, 4);
+		CountDownLatch release = new CountDownLatch(1);
+		executor.execute(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		try {
+			assertThatThrownBy(() -> hasher.matches("secret", "$2a$04$x").get())
+					.isInstanceOf(ExecutionException.class)
+					.hasCauseInstanceOf(PasswordHashingBusyException.class);
+		} finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	private static PasswordHasher hasher(ThreadPoolTaskExecutor executor, int strength) {
+		return new PasswordHasher(new BCryptPasswordEncoder(strength), executor, new SimpleMeterRegistry(), strength, 3000);
+	}
+
+	private static ThreadPoolTaskExecutor executor(int threads, int queueCapacity) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(threads);
+		executor.setMaxPoolSize(threads);
+		executor.setQueueCapacity(queueCapacity);
+		executor.initialize();
+		return executor;
+	}
+}
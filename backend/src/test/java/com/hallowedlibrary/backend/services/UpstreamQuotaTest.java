@@ -0,0 +1,57 @@
+package com.hallowedlibrary.backend.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import com.hallowedlibrary.backend.exceptions.UpstreamRateLimitedException;
+
+class UpstreamQuotaTest {
+
+	// 4 tokens de ráfaga, casi sin recarga, sin esperas, la mitad reservada para INTERACTIVE
+	private UpstreamQuota quota(long dailyLimit) {
+		return new UpstreamQuota(0.001, 4, dailyLimit, 0, 0.5, 1000, 60000);
+	}
+
+	@Test
+	void backgroundLeavesReserveForInteractive() {
+		UpstreamQuota quota = quota(0);
+
+		quota.acquire(UpstreamQuota.Priority.BACKGROUND);
+		quota.acquire(UpstreamQuota.Priority.BACKGROUND);
+		assertThatThrownBy(() -> quota.acquire(UpstreamQuota.Priority.BACKGROUND))
+				.isInstanceOf(UpstreamRateLimitedException.class);
+
+		quota.acquire(UpstreamQuota.Priority.INTERACTIVE);
+		quota.acquire(UpstreamQuota.Priority.INTERACTIVE);
+		assertThatThrownBy(() -> quota.acquire(UpstreamQuota.Priority.INTERACTIVE))
+				.isInstanceOf(UpstreamRateLimitedException.class);
+	}
+
+	@Test
+	void dailyLimitIsEnforced() {
+		UpstreamQuota quota = quota(2);
+
+		quota.acquire(UpstreamQuota.Priority.INTERACTIVE);
+		quota.acquire(UpstreamQuota.Priority.INTERACTIVE);
+		assertThat(quota.getRemainingDaily()).isZero();
+		assertThatThrownBy(() -> quota.acquire(UpstreamQuota.Priority.INTERACTIVE))
+				.isInstanceOf(UpstreamRateLimitedException.class);
+	}
+
+	@Test
+	void upstream429BlocksWithExponentialBackoff() {
+		UpstreamQuota quota = quota(0);
+
+		assertThat(quota.onRateLimited(0)).isEqualTo(1);
+		assertThat(quota.onRateLimited(0)).isEqualTo(2);
+		assertThat(quota.onRateLimited(30)).isEqualTo(30);
+		assertThatThrownBy(() -> quota.acquire(UpstreamQuota.Priority.INTERACTIVE))
+				.isInstanceOfSatisfying(UpstreamRateLimitedException.class,
+						e -> assertThat(e.getRetryAfterSeconds()).isGreaterThan(1));
+
+		quota.onSuccess();
+		assertThat(quota.onRateLimited(0)).isEqualTo(1);
+	}
+}
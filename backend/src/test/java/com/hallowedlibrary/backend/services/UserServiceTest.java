@@ -0,0 +1,40 @@
+package com.hallowedlibrary.backend.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.SQLException;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+class UserServiceTest {
+
+	@Test
+	void mapsNamedConstraintsToTheDuplicatedField() {
+		assertThat(UserService.duplicatedField(violation("users_username_key", ""))).isEqualTo("username");
+		assertThat(UserService.duplicatedField(violation("users_email_lower_key", ""))).isEqualTo("email");
+	}
+
+	@Test
+	void fallsBackToTheKeyColumnsIgnoringTheValue() {
+		// Restricción antigua con nombre aleatorio y un username que contiene "email"
+		DataIntegrityViolationException e = violation("ukqbijo7eaqm0fd8kvqp8v32ia3",
+				"ERROR: duplicate key value violates unique constraint \"ukqbijo7eaqm0fd8kvqp8v32ia3\"\n"
+						+ "  Detail: Key (username)=(my_email) already exists.");
+
+		assertThat(UserService.duplicatedField(e)).isEqualTo("username");
+	}
+
+	@Test
+	void ignoresOtherIntegrityErrors() {
+		SQLException notNull = new SQLException("null value in column \"name\"", "23502");
+		assertThat(UserService.duplicatedField(new DataIntegrityViolationException("not null", notNull))).isNull();
+	}
+
+	private static DataIntegrityViolationException violation(String constraint, String message) {
+		SQLException sql = new SQLException(message, "23505");
+		return new DataIntegrityViolationException("duplicate",
+				new ConstraintViolationException("duplicate", sql, constraint));
+	}
+}